@@ -24,6 +24,7 @@ import com.example.sudokuvocabulary.fragments.ExitGameDialogFragment;
 import com.example.sudokuvocabulary.models.SudokuModel;
 import com.example.sudokuvocabulary.models.TimerModel;
 import com.example.sudokuvocabulary.utils.PrefUtils;
+import com.example.sudokuvocabulary.utils.PuzzlePoolUtil;
 import com.example.sudokuvocabulary.utils.SaveFileUtil;
 import com.example.sudokuvocabulary.views.QuestionCardView;
 import com.example.sudokuvocabulary.views.SudokuView;
@@ -52,8 +53,6 @@ public abstract class BaseSudokuActivity extends MenuForAllActivity implements V
         mSudokuView = findViewById(R.id.sudokuGridView);
         mSudokuView.setOnTouchListener(this);
 
-        int subWidth, subHeight;
-
         // Load existing save file if load button was pressed from main menu and save file exists
         if (PrefUtils.loadBoolPreference(this, getString(R.string.save_game_key)) &&
                 SaveFileUtil.saveExists(this, saveFileName)) {
@@ -61,15 +60,15 @@ public abstract class BaseSudokuActivity extends MenuForAllActivity implements V
             mSudokuModel = (SudokuModel) savedObjects[SaveFileUtil.SaveObjects.SUDOKU_MODEL.ordinal()];
             mWords = (String[]) savedObjects[SaveFileUtil.SaveObjects.WORDS.ordinal()];
             mTranslations = (String[]) savedObjects[SaveFileUtil.SaveObjects.TRANSLATIONS.ordinal()];
-            mSudokuView.setView((String[][]) savedObjects[SaveFileUtil.SaveObjects.SUDOKU_GRID.ordinal()]);
+            mSudokuView.setView((String[][]) savedObjects[SaveFileUtil.SaveObjects.SUDOKU_GRID.ordinal()],
+                    mSudokuModel.getGeometry());
+            mSudokuView.setNotes(mSudokuModel, getNoteLabels());
             startTime = (double) savedObjects[SaveFileUtil.SaveObjects.TIME.ordinal()];
         } else {
             // Initialize a new game
             mWords = getIntent().getStringArrayExtra(getString(R.string.words_key));
             mTranslations = getIntent().getStringArrayExtra(getString(R.string.translations_key));
-            subWidth = (int) Math.ceil(Math.sqrt(mWords.length));
-            subHeight = (int) Math.floor(Math.sqrt(mWords.length));
-            mSudokuModel = new SudokuModel(mWords.length, subWidth, subHeight, (mWords.length*mWords.length)/2);
+            mSudokuModel = PuzzlePoolUtil.takePuzzle(this, mWords.length);
 
             // Set the words to draw on the grid and the dimensions of the grid
             initializeGrid();
@@ -128,7 +127,9 @@ public abstract class BaseSudokuActivity extends MenuForAllActivity implements V
         // Save necessary components of the model for restoration
         savedInstanceState.putIntArray(getString(R.string.current_grid_key), mSudokuModel.getGridAsArray());
         savedInstanceState.putIntArray(getString(R.string.solution_grid_key), mSudokuModel.getSolutionAsArray());
-        savedInstanceState.putInt(getString(R.string.cells_empty_key), mSudokuModel.getNumberOfEmptyCells());
+        savedInstanceState.putIntArray(getString(R.string.notes_key), mSudokuModel.getNotesAsArray());
+        savedInstanceState.putInt(getString(R.string.sub_width_key), mSudokuModel.getSubGridColumns());
+        savedInstanceState.putInt(getString(R.string.sub_height_key), mSudokuModel.getSubGridRows());
 
         // Save the cell that the user has currently selected
         savedInstanceState.putInt(getString(R.string.cell_row_key), mCellRow);
@@ -161,10 +162,11 @@ public abstract class BaseSudokuActivity extends MenuForAllActivity implements V
         super.onRestoreInstanceState(savedInstanceState);
 
         // Restore the model
-        mSudokuModel = new SudokuModel();
-        mSudokuModel.setGridFromArray(savedInstanceState.getIntArray(getString(R.string.current_grid_key)));
+        mSudokuModel = new SudokuModel(savedInstanceState.getIntArray(getString(R.string.current_grid_key)),
+                savedInstanceState.getInt(getString(R.string.sub_height_key)),
+                savedInstanceState.getInt(getString(R.string.sub_width_key)));
         mSudokuModel.setSolutionFromArray(savedInstanceState.getIntArray(getString(R.string.solution_grid_key)));
-        mSudokuModel.setNumberOfEmptyCells(savedInstanceState.getInt(getString(R.string.cells_empty_key)));
+        mSudokuModel.setNotesFromArray(savedInstanceState.getIntArray(getString(R.string.notes_key)));
 
         mWords = savedInstanceState.getStringArray(getString(R.string.words_key));
         mTranslations = savedInstanceState.getStringArray(getString(R.string.translations_key));
@@ -174,7 +176,8 @@ public abstract class BaseSudokuActivity extends MenuForAllActivity implements V
         mSudokuView = findViewById(R.id.sudokuGridView);
         String[][] wordsToDraw = SudokuModel.expand(
                 savedInstanceState.getStringArray(getString(R.string.word_grid_key)));
-        mSudokuView.setView(wordsToDraw);
+        mSudokuView.setView(wordsToDraw, mSudokuModel.getGeometry());
+        mSudokuView.setNotes(mSudokuModel, getNoteLabels());
 
         mCellRow = savedInstanceState.getInt(getString(R.string.cell_row_key));
         mCellColumn = savedInstanceState.getInt(getString(R.string.cell_column_key));
@@ -246,6 +249,14 @@ public abstract class BaseSudokuActivity extends MenuForAllActivity implements V
      */
     protected abstract void onCardRestore();
 
+    /**
+     * @return The label drawn on the grid for each noted number, labels[n-1] for the
+     * number n. The words by default.
+     */
+    protected String[] getNoteLabels() {
+        return mWords;
+    }
+
     public void resumeTimer() {
         timer.start();
     }
@@ -253,9 +264,31 @@ public abstract class BaseSudokuActivity extends MenuForAllActivity implements V
     private void setButtonListeners(Button[] buttons) {
         for (Button button: buttons) {
             button.setOnClickListener(onClick());
+            button.setOnLongClickListener(onLongClick());
         }
     }
 
+    /**
+     * @return An OnLongClickListener for the input prompt buttons, which notes or un-notes
+     * the pressed choice in the selected cell if it is empty.
+     */
+    private View.OnLongClickListener onLongClick() {
+        return view -> {
+            if (mSudokuModel.cellNotEmpty(mCellRow, mCellColumn)) {
+                return false;
+            }
+            String choice = (String) ((Button) view).getText();
+            for (int number = 1; number <= mTranslations.length; number++) {
+                if (mTranslations[number-1].equals(choice)) {
+                    mSudokuModel.toggleNoteAt(mCellRow, mCellColumn, number);
+                    mSudokuView.invalidate();
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
     /**
      * Displays a dialog confirming that the user wishes to exit the active game.
      */
@@ -57,13 +57,19 @@ public class ListenModeActivity extends BaseSudokuActivity {
 
     @Override
     protected void initializeGrid() {
+        mSudokuView.setView(mSudokuModel, getNoteLabels());
+    }
+
+    @Override
+    protected String[] getNoteLabels() {
+        // Numbers are drawn instead of words so the words have to be listened to
         String[] numbers  = new String[mSudokuModel.getGridLength()];
         int[] numbersToCopy = mSudokuModel.getNumberArray();
         int index = 0;
         for (int number: numbersToCopy) {
             numbers[index++] = Integer.toString(number);
         }
-        mSudokuView.setView(mSudokuModel.getGridAsMatrix(), numbers);
+        return numbers;
     }
 
     @Override
@@ -11,6 +11,7 @@ import androidx.fragment.app.DialogFragment;
 import com.example.sudokuvocabulary.R;
 import com.example.sudokuvocabulary.fragments.OverrideSaveDialogFragment;
 import com.example.sudokuvocabulary.utils.PrefUtils;
+import com.example.sudokuvocabulary.utils.PuzzlePoolUtil;
 import com.example.sudokuvocabulary.utils.SaveFileUtil;
 
 public class MainMenuActivity extends MenuForAllActivity {
@@ -19,6 +20,9 @@ public class MainMenuActivity extends MenuForAllActivity {
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
 
+        // Start generating puzzles in the background so a new game starts instantly
+        PuzzlePoolUtil.getPool(this);
+
         // Set up play button
         Button playButton = findViewById(R.id.main_menu_play_button);
         playButton.setOnClickListener(v -> {
@@ -42,11 +46,19 @@ public class MainMenuActivity extends MenuForAllActivity {
             Intent intent;
 
             // Retrieve the game mode from the save file
-            boolean savedGameMode = (boolean)  SaveFileUtil.readFromSave(
-                    this,
-                    getString(R.string.save_game_file),
-                    SaveFileUtil.SaveObjects.GAME_MODE
-            );
+            boolean savedGameMode;
+            try {
+                savedGameMode = (boolean)  SaveFileUtil.readFromSave(
+                        this,
+                        getString(R.string.save_game_file),
+                        SaveFileUtil.SaveObjects.GAME_MODE
+                );
+            } catch (RuntimeException e) {
+                // Saves written by an older version of the models can not be read
+                SaveFileUtil.deleteSave(this, saveFileName);
+                loadButton.setEnabled(false);
+                return;
+            }
 
             // Check which mode the game was in according to the save file
             if (savedGameMode) {
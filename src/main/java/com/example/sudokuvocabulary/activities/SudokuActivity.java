@@ -42,7 +42,7 @@ public class SudokuActivity extends BaseSudokuActivity {
 
     @Override
     protected void initializeGrid() {
-        mSudokuView.setView(mSudokuModel.getGridAsMatrix(), mWords);
+        mSudokuView.setView(mSudokuModel, mWords);
     }
 
     @Override
@@ -0,0 +1,573 @@
+package com.example.sudokuvocabulary.models;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BitmaskSolverModel {
+
+    // Height/Width of the total Sudoku board
+    private final int mGridLength;
+    // Number of cells in the Sudoku board
+    private final int mGridSize;
+    // Bitmask with one bit set for every number that can be placed in a cell
+    private final int mAllCandidates;
+    // Row-major array of the board being solved, zero for empty cells
+    private final int[] mCells;
+    // Bitmasks of the numbers already used in each row, column and sub grid
+    private final int[] mRowMasks, mColumnMasks, mSubGridMasks;
+    // Row, column and sub grid number of every cell index, shared with the board geometry
+    private final int[] mRowOf, mColumnOf, mSubGridOf;
+    // Cell indices of every row, then every column, then every sub grid, shared with the
+    // board geometry
+    private final int[] mUnitCells;
+    // Indices of the empty cells, cells before the current search depth are filled.
+    // Cells filled by propagation are moved in front of the depth, so this doubles as the
+    // undo trail of the propagation stage.
+    private final int[] mEmptyCells;
+    // Position of every empty cell in mEmptyCells
+    private final int[] mPositionOf;
+    // Number of empty cells in the board being solved
+    private int mEmptyCount;
+    // True to branch on the cell with the fewest candidates, false for row-major order
+    private final boolean mMostConstrainedFirst;
+    // True to fill naked and hidden singles before every branch
+    private final boolean mPropagateSingles;
+    // Candidates still to be tried by each search depth, in the order they will be tried
+    private final int[] mOrder;
+    // Explicit search stack: the depth each level started at, the position of the cell it
+    // branches on, how many candidates it has and which one it tries next
+    private final int[] mLevelStart, mLevelBranch, mLevelSize, mLevelNext;
+    // False if the board contained a number twice in the same row, column or sub grid
+    private boolean mConsistent = true;
+    // Solution count shared with other solvers searching other branches, may be null
+    private AtomicInteger mSharedSolutions;
+    // Limits on the work a search may do, may be null
+    private SolverBudgetModel mBudget;
+    // Number of nodes expanded by the searches of this solver
+    private long mNodes;
+    // Node count shared with other solvers spending the same budget, may be null
+    private AtomicLong mSharedNodes;
+    // Why the last search returned
+    private SolverResultModel.Status mStatus = SolverResultModel.Status.COMPLETE;
+    // Counters of the work done by the searches, may be null
+    private SolverStatsModel mStats;
+    // Receives the cells of every solution found by the current count, may be null
+    private int[] mSolutionCopy;
+
+    /**
+     * <h1>BitmaskSolverModel</h1>
+     * <p>Copies the given board and builds the row, column and sub grid occupancy masks
+     * used to answer candidate queries with a single AND/NOT.</p>
+     * @param board The Sudoku board to solve, the board itself is never modified
+     * @param mostConstrainedFirst True to always branch on the empty cell with the fewest
+     *                             candidates, false to visit empty cells in row-major order
+     * @param propagateSingles True to fill every naked and hidden single before branching
+     */
+    public BitmaskSolverModel(SudokuModel board, boolean mostConstrainedFirst, boolean propagateSingles) {
+        mMostConstrainedFirst = mostConstrainedFirst;
+        mPropagateSingles = propagateSingles;
+        mGridLength = board.getGridLength();
+        mGridSize = board.getGridSize();
+        mAllCandidates = (1 << mGridLength) - 1;
+        mCells = new int[mGridSize];
+        mRowMasks = new int[mGridLength];
+        mColumnMasks = new int[mGridLength];
+        mSubGridMasks = new int[mGridLength];
+        BoardGeometryModel geometry = board.getGeometry();
+        mRowOf = geometry.rowOf();
+        mColumnOf = geometry.columnOf();
+        mSubGridOf = geometry.subGridOf();
+        mUnitCells = geometry.unitCells();
+        mOrder = new int[mGridSize * mGridLength];
+        mLevelStart = new int[mGridSize + 1];
+        mLevelBranch = new int[mGridSize + 1];
+        mLevelSize = new int[mGridSize + 1];
+        mLevelNext = new int[mGridSize + 1];
+        mEmptyCells = new int[mGridSize];
+        mPositionOf = new int[mGridSize];
+
+        for (int index = 0; index < mGridSize; index++) {
+            int value = board.getValueAt(index);
+            if (value != 0) {
+                if ((candidatesAt(index) & bit(value)) == 0) {
+                    mConsistent = false;
+                }
+                setValueAt(index, value);
+            } else {
+                mPositionOf[index] = mEmptyCount;
+                mEmptyCells[mEmptyCount++] = index;
+            }
+        }
+    }
+
+    /**
+     * <h1>BitmaskSolverModel</h1>
+     * <p>Creates a solver which visits the empty cells in row-major order.</p>
+     * @param board The Sudoku board to solve, the board itself is never modified
+     */
+    public BitmaskSolverModel(SudokuModel board) {
+        this(board, false, false);
+    }
+
+    /**
+     * <h1>BitmaskSolverModel</h1>
+     * <p>Copy constructor used to hand a branch of the search to another thread. The lookup
+     * tables are shared, everything the search modifies is copied.</p>
+     * @param other The solver to copy, must not be searching while it is copied
+     */
+    public BitmaskSolverModel(BitmaskSolverModel other) {
+        mGridLength = other.mGridLength;
+        mGridSize = other.mGridSize;
+        mAllCandidates = other.mAllCandidates;
+        mMostConstrainedFirst = other.mMostConstrainedFirst;
+        mPropagateSingles = other.mPropagateSingles;
+        mRowOf = other.mRowOf;
+        mColumnOf = other.mColumnOf;
+        mSubGridOf = other.mSubGridOf;
+        mUnitCells = other.mUnitCells;
+        mConsistent = other.mConsistent;
+        mEmptyCount = other.mEmptyCount;
+        mCells = other.mCells.clone();
+        mRowMasks = other.mRowMasks.clone();
+        mColumnMasks = other.mColumnMasks.clone();
+        mSubGridMasks = other.mSubGridMasks.clone();
+        mEmptyCells = other.mEmptyCells.clone();
+        mPositionOf = other.mPositionOf.clone();
+        mOrder = new int[mGridSize * mGridLength];
+        mLevelStart = new int[mGridSize + 1];
+        mLevelBranch = new int[mGridSize + 1];
+        mLevelSize = new int[mGridSize + 1];
+        mLevelNext = new int[mGridSize + 1];
+    }
+
+    /**
+     * @param index The row-major index of the cell
+     * @return A bitmask of the numbers that can legally be placed in the cell,
+     * bit (n-1) is set if the number n is a candidate
+     */
+    public int candidatesAt(int index) {
+        return mAllCandidates &
+                ~(mRowMasks[mRowOf[index]] | mColumnMasks[mColumnOf[index]] | mSubGridMasks[mSubGridOf[index]]);
+    }
+
+    /**
+     * @param index The row-major index of the cell
+     * @return The number of candidates left for the cell
+     */
+    public int candidateCountAt(int index) {
+        return Integer.bitCount(candidatesAt(index));
+    }
+
+    /**
+     * @param index The row-major index of the cell
+     * @return The value in the cell, zero if empty
+     */
+    public int getValueAt(int index) { return mCells[index]; }
+
+    /**
+     * <p>Places a number in an empty cell and marks it as used in the cell's row,
+     * column and sub grid.</p>
+     * @param index The row-major index of the cell
+     * @param value The number to place, 1 <= value <= grid length
+     */
+    public void setValueAt(int index, int value) {
+        int mask = bit(value);
+        mCells[index] = value;
+        mRowMasks[mRowOf[index]] |= mask;
+        mColumnMasks[mColumnOf[index]] |= mask;
+        mSubGridMasks[mSubGridOf[index]] |= mask;
+    }
+
+    /**
+     * <p>Empties a cell and frees its number in the cell's row, column and sub grid.</p>
+     * @param index The row-major index of the cell
+     */
+    public void clearValueAt(int index) {
+        int mask = ~bit(mCells[index]);
+        mCells[index] = 0;
+        mRowMasks[mRowOf[index]] &= mask;
+        mColumnMasks[mColumnOf[index]] &= mask;
+        mSubGridMasks[mSubGridOf[index]] &= mask;
+    }
+
+    /**
+     * <p>Permanently fills an empty cell, removing it from the cells the search visits.</p>
+     * @param index The row-major index of an empty cell
+     * @param value The number to place, 1 <= value <= grid length
+     */
+    public void fixValueAt(int index, int value) {
+        swapPositions(mPositionOf[index], --mEmptyCount);
+        setValueAt(index, value);
+    }
+
+    /**
+     * <p>Empties a cell filled by {@link #fixValueAt(int, int)} or given in the board, adding
+     * it back to the cells the search visits.</p>
+     * @param index The row-major index of a filled cell
+     */
+    public void releaseValueAt(int index) {
+        clearValueAt(index);
+        mPositionOf[index] = mEmptyCount;
+        mEmptyCells[mEmptyCount++] = index;
+    }
+
+    /**
+     * @return The number of cells the search still has to fill
+     */
+    public int getEmptyCount() { return mEmptyCount; }
+
+    /**
+     * @return False if the board given to the solver already broke the Sudoku rules
+     */
+    public boolean isConsistent() { return mConsistent; }
+
+    /**
+     * @return The row-major index of the empty cell with the fewest candidates,
+     * -1 if there are no empty cells
+     */
+    public int mostConstrainedCell() {
+        if (mEmptyCount == 0) { return -1; }
+        int best = mEmptyCells[0], bestCount = Integer.MAX_VALUE;
+        for (int position = 0; position < mEmptyCount; position++) {
+            int count = Integer.bitCount(candidatesAt(mEmptyCells[position]));
+            if (count < bestCount) {
+                best = mEmptyCells[position];
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * <p>Makes the search add every solution it finds to the given counter and stop as soon
+     * as the counter reaches the search limit, even if the solutions were found by another
+     * solver sharing the counter.</p>
+     * @param counter The shared solution counter, null to search independently
+     */
+    public void shareSolutionCounter(AtomicInteger counter) {
+        mSharedSolutions = counter;
+    }
+
+    /**
+     * <p>Makes the search count its nodes on the given counter, so the node limit of the
+     * budget applies to every solver sharing the counter together rather than to each one.
+     * The shared count is not reset by {@link #setBudget}.</p>
+     * @param counter The shared node counter, null to count independently
+     */
+    public void shareNodeCounter(AtomicLong counter) {
+        mSharedNodes = counter;
+    }
+
+    /**
+     * <p>Limits the work done by the searches of this solver. When the budget runs out the
+     * search stops, the cells are emptied again and {@link #getStatus()} says why. The nodes
+     * counted against the budget start again from zero.</p>
+     * @param budget The budget to respect, null for an unlimited search
+     */
+    public void setBudget(SolverBudgetModel budget) {
+        mBudget = budget;
+        mNodes = 0;
+    }
+
+    /**
+     * @return COMPLETE if the last search finished, otherwise the reason its budget stopped it
+     */
+    public SolverResultModel.Status getStatus() { return mStatus; }
+
+    /**
+     * <p>Makes the searches of this solver record what they do in the given stats object.</p>
+     * @param stats The stats to add to, null to turn recording off
+     */
+    public void setStats(SolverStatsModel stats) {
+        mStats = stats;
+    }
+
+    /**
+     * <p>Counts the solutions of the board, stopping as soon as the limit is reached.
+     * The board is left exactly as it was found.</p>
+     * @param limit The number of solutions after which the search stops
+     * @return The number of solutions found, never more than limit
+     */
+    public int countSolutions(int limit) {
+        if (!mConsistent) { return 0; }
+        return search(limit, null);
+    }
+
+    /**
+     * <p>Counts the solutions of the board like {@link #countSolutions(int)} and also
+     * reports the last solution found.</p>
+     * @param limit The number of solutions after which the search stops
+     * @param solution Array of mGridSize cells which receives the last solution found in
+     *                 row-major order, left untouched if there is none
+     * @return The number of solutions found, never more than limit
+     */
+    public int countSolutions(int limit, int[] solution) {
+        mSolutionCopy = solution;
+        try {
+            return countSolutions(limit);
+        } finally {
+            mSolutionCopy = null;
+        }
+    }
+
+    /**
+     * <p>Fills every empty cell with the first solution found, trying the candidates
+     * of each cell in a random order.</p>
+     * @param random The source of randomness used to order the candidates
+     * @return True if a solution was found, false if the board is unsolvable
+     */
+    public boolean solve(SplittableRandom random) {
+        return mConsistent && search(1, random) == 1;
+    }
+
+    /**
+     * <p>Writes the values of the solver back into every empty cell of the given board.</p>
+     * @param board The board this solver was created from
+     */
+    public void copyTo(SudokuModel board) {
+        for (int index = 0; index < mGridSize; index++) {
+            int row = mRowOf[index], column = mColumnOf[index];
+            if (!board.cellNotEmpty(row, column) && mCells[index] != 0) {
+                board.setValueAt(row, column, mCells[index]);
+            }
+        }
+    }
+
+    /**
+     * <p>Depth first search over the empty cells, using the level arrays as an explicit
+     * stack instead of recursion so large boards cannot overflow the call stack.</p>
+     * @param limit The number of solutions after which the search stops
+     * @param random Used to order the candidates and keep the first solution in the cells,
+     *               if null the candidates are tried in ascending order and the cells are
+     *               emptied again before returning. The cells are always emptied if the
+     *               budget stops the search
+     * @return The number of solutions found, never more than limit
+     */
+    private int search(int limit, SplittableRandom random) {
+        int solutions = 0, level = 0, depth = 0;
+        mStatus = SolverResultModel.Status.COMPLETE;
+        boolean entering = true;
+        while (true) {
+            if (entering) {
+                // Start a new level at the given depth
+                if (mSharedSolutions != null && mSharedSolutions.get() >= limit) {
+                    undo(0, depth);
+                    return solutions;
+                }
+                long nodes = mBudget == null ? 0 :
+                        mSharedNodes != null ? mSharedNodes.incrementAndGet() : ++mNodes;
+                if (mBudget != null && (mStatus = mBudget.check(nodes)) != SolverResultModel.Status.COMPLETE) {
+                    undo(0, depth);
+                    return solutions;
+                }
+                if (mStats != null) {
+                    mStats.addNode();
+                    mStats.reachDepth(level);
+                }
+                mLevelStart[level] = depth;
+                if (mPropagateSingles) { depth = propagate(depth); }
+                if (depth < 0 || depth >= mEmptyCount) {
+                    if (depth >= mEmptyCount && mStats != null) { mStats.addSolutionFound(); }
+                    if (depth >= mEmptyCount && mSolutionCopy != null) {
+                        System.arraycopy(mCells, 0, mSolutionCopy, 0, mGridSize);
+                    }
+                    if (depth >= mEmptyCount && solutionFound(++solutions, limit)) {
+                        if (random == null) { undo(0, depth); }
+                        return solutions;
+                    }
+                    if (depth < 0 && mStats != null) { mStats.addBacktrack(); }
+                    if (depth >= 0) { undo(mLevelStart[level], depth); }
+                    if (--level < 0) { return solutions; }
+                    entering = false;
+                    continue;
+                }
+                int index = nextCell(depth, random);
+                mLevelBranch[level] = depth;
+                mLevelSize[level] = orderedCandidates(index, depth, random);
+                mLevelNext[level] = 0;
+            }
+
+            // Try the next candidate of the current level, or backtrack
+            int branch = mLevelBranch[level], index = mEmptyCells[branch];
+            if (mCells[index] != 0) { clearValueAt(index); }
+            if (mLevelNext[level] < mLevelSize[level]) {
+                setValueAt(index, mOrder[branch * mGridLength + mLevelNext[level]++]);
+                if (mStats != null) { mStats.addCandidateTried(); }
+                depth = branch + 1;
+                level++;
+                entering = true;
+            } else {
+                if (mStats != null) { mStats.addBacktrack(); }
+                undo(mLevelStart[level], branch);
+                if (--level < 0) { return solutions; }
+                entering = false;
+            }
+        }
+    }
+
+    /**
+     * @param solutions The number of solutions this solver has found
+     * @param limit The number of solutions after which the search stops
+     * @return True if the search should stop
+     */
+    private boolean solutionFound(int solutions, int limit) {
+        if (mSharedSolutions != null) {
+            return mSharedSolutions.incrementAndGet() >= limit;
+        }
+        return solutions >= limit;
+    }
+
+    /**
+     * <p>Repeatedly fills naked singles (cells with one candidate) and hidden singles
+     * (numbers with one possible cell in a row, column or sub grid) until nothing changes.
+     * Every filled cell is moved to the front of the still empty part of mEmptyCells.</p>
+     * @param depth The current search depth, cells at positions >= depth are still empty
+     * @return The search depth after propagation, or -1 if a contradiction was found, in which
+     * case everything filled by this call has already been undone
+     */
+    private int propagate(int depth) {
+        int start = depth;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+
+            // Naked singles
+            for (int position = depth; position < mEmptyCount; position++) {
+                int index = mEmptyCells[position];
+                int candidates = candidatesAt(index);
+                if (candidates == 0) {
+                    undo(start, depth);
+                    return -1;
+                }
+                if ((candidates & (candidates - 1)) == 0) {
+                    assign(index, Integer.numberOfTrailingZeros(candidates) + 1, depth++);
+                    changed = true;
+                }
+            }
+
+            // Hidden singles
+            for (int unit = 0; unit < 3 * mGridLength; unit++) {
+                if (unitMask(unit) == mAllCandidates) { continue; }
+                int once = 0, twice = 0, offset = unit * mGridLength;
+                for (int i = offset; i < offset + mGridLength; i++) {
+                    int index = mUnitCells[i];
+                    if (mCells[index] == 0) {
+                        int candidates = candidatesAt(index);
+                        twice |= once & candidates;
+                        once |= candidates;
+                    }
+                }
+                if ((once | unitMask(unit)) != mAllCandidates) {
+                    undo(start, depth);
+                    return -1;
+                }
+                int hidden = once & ~twice;
+                while (hidden != 0) {
+                    int mask = hidden & -hidden;
+                    hidden ^= mask;
+                    int cell = -1;
+                    for (int i = offset; i < offset + mGridLength && cell < 0; i++) {
+                        int index = mUnitCells[i];
+                        if (mCells[index] == 0 && (candidatesAt(index) & mask) != 0) { cell = index; }
+                    }
+                    if (cell < 0) {
+                        undo(start, depth);
+                        return -1;
+                    }
+                    assign(cell, Integer.numberOfTrailingZeros(mask) + 1, depth++);
+                    changed = true;
+                }
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * <p>Fills an empty cell and moves it to the given position of mEmptyCells.</p>
+     */
+    private void assign(int index, int value, int position) {
+        swapPositions(mPositionOf[index], position);
+        setValueAt(index, value);
+    }
+
+    /**
+     * <p>Empties every cell filled between the two positions of mEmptyCells.</p>
+     */
+    private void undo(int from, int to) {
+        for (int position = from; position < to; position++) {
+            clearValueAt(mEmptyCells[position]);
+        }
+    }
+
+    private void swapPositions(int first, int second) {
+        int index = mEmptyCells[first];
+        mEmptyCells[first] = mEmptyCells[second];
+        mEmptyCells[second] = index;
+        mPositionOf[mEmptyCells[first]] = first;
+        mPositionOf[index] = second;
+    }
+
+    /**
+     * @param unit A row number, grid length + a column number or
+     *             2 * grid length + a sub grid number
+     * @return The bitmask of the numbers already used in the unit
+     */
+    private int unitMask(int unit) {
+        if (unit < mGridLength) { return mRowMasks[unit]; }
+        if (unit < 2 * mGridLength) { return mColumnMasks[unit - mGridLength]; }
+        return mSubGridMasks[unit - 2 * mGridLength];
+    }
+
+    /**
+     * <p>Picks the cell to branch on at the given depth and moves it to that position of
+     * mEmptyCells. In most constrained mode this is the empty cell with the fewest
+     * candidates, with ties broken randomly when a source of randomness is given. The scan
+     * stops at the first cell without candidates, and without randomness also at the first
+     * forced single.</p>
+     * @param depth The current search depth, cells at positions >= depth are still empty
+     * @param random Used to break ties between equally constrained cells, may be null
+     * @return The row-major index of the cell to branch on
+     */
+    private int nextCell(int depth, SplittableRandom random) {
+        if (!mMostConstrainedFirst) { return mEmptyCells[depth]; }
+
+        int best = depth, bestCount = Integer.MAX_VALUE, ties = 0;
+        for (int position = depth; position < mEmptyCount; position++) {
+            int count = Integer.bitCount(candidatesAt(mEmptyCells[position]));
+            if (count < bestCount) {
+                best = position;
+                bestCount = count;
+                ties = 1;
+                if (count == 0 || (count == 1 && random == null)) { break; }
+            } else if (count == bestCount && random != null && random.nextInt(++ties) == 0) {
+                best = position;
+            }
+        }
+        swapPositions(best, depth);
+        return mEmptyCells[depth];
+    }
+
+    /**
+     * <p>Writes the candidates of a cell into the part of mOrder reserved for the given
+     * search depth, in a random order if a source of randomness is given.</p>
+     * @return The number of candidates written
+     */
+    private int orderedCandidates(int index, int depth, SplittableRandom random) {
+        int offset = depth * mGridLength, size = 0;
+        int candidates = candidatesAt(index);
+        while (candidates != 0) {
+            int mask = candidates & -candidates;
+            candidates ^= mask;
+            int swap = random == null ? size : random.nextInt(size + 1);
+            mOrder[offset + size] = mOrder[offset + swap];
+            mOrder[offset + swap] = Integer.numberOfTrailingZeros(mask) + 1;
+            size++;
+        }
+        return size;
+    }
+
+    private static int bit(int value) {
+        return 1 << (value - 1);
+    }
+}
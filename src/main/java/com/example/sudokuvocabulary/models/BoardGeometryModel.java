@@ -0,0 +1,185 @@
+package com.example.sudokuvocabulary.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class BoardGeometryModel {
+
+    // Every geometry built so far, keyed by gridLength, subGridColumns and subGridRows
+    private static final Map<Long, BoardGeometryModel> GEOMETRIES = new HashMap<>();
+
+    // Height/Width of the total Sudoku board
+    private final int mGridLength;
+    // Number of cells in the Sudoku board
+    private final int mGridSize;
+    // Height of each sub grid
+    private final int mSubGridRows;
+    // Width of each sub grid
+    private final int mSubGridColumns;
+    // Number of other cells sharing a row, column or sub grid with each cell
+    private final int mPeerCount;
+    // Row, column and sub grid number of every cell index
+    private final int[] mRowOf, mColumnOf, mSubGridOf;
+    // Cell indices of every row, then every column, then every sub grid
+    private final int[] mUnitCells;
+    // Peers of every cell, mPeerCount per cell: its row, then its column, then the rest of
+    // its sub grid
+    private final int[] mPeers;
+
+    private BoardGeometryModel(int gridLength, int subGridColumns, int subGridRows) {
+        mGridLength = gridLength;
+        mGridSize = gridLength*gridLength;
+        mSubGridRows = subGridRows;
+        mSubGridColumns = subGridColumns;
+        mPeerCount = 2 * (gridLength - 1) + (subGridRows - 1) * (subGridColumns - 1);
+        mRowOf = new int[mGridSize];
+        mColumnOf = new int[mGridSize];
+        mSubGridOf = new int[mGridSize];
+        mUnitCells = new int[3 * mGridSize];
+        mPeers = new int[mGridSize * mPeerCount];
+
+        int subGridsPerRow = gridLength / subGridColumns;
+        int[] unitSizes = new int[3 * gridLength];
+        for (int index = 0; index < mGridSize; index++) {
+            int row = index / gridLength, column = index % gridLength;
+            mRowOf[index] = row;
+            mColumnOf[index] = column;
+            mSubGridOf[index] = (row / subGridRows) * subGridsPerRow + column / subGridColumns;
+            addToUnit(row, index, unitSizes);
+            addToUnit(gridLength + column, index, unitSizes);
+            addToUnit(2 * gridLength + mSubGridOf[index], index, unitSizes);
+        }
+        for (int index = 0; index < mGridSize; index++) {
+            int peer = index * mPeerCount;
+            for (int i = 0; i < gridLength; i++) {
+                int other = mUnitCells[mRowOf[index] * gridLength + i];
+                if (other != index) { mPeers[peer++] = other; }
+            }
+            for (int i = 0; i < gridLength; i++) {
+                int other = mUnitCells[(gridLength + mColumnOf[index]) * gridLength + i];
+                if (other != index) { mPeers[peer++] = other; }
+            }
+            for (int i = 0; i < gridLength; i++) {
+                int other = mUnitCells[(2 * gridLength + mSubGridOf[index]) * gridLength + i];
+                if (mRowOf[other] != mRowOf[index] && mColumnOf[other] != mColumnOf[index]) {
+                    mPeers[peer++] = other;
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>Returns the lookup tables of a board geometry. Each geometry is built once and
+     * shared by every board, solver, rater and view of that size, so it must never be
+     * modified.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @return The shared geometry
+     */
+    public static BoardGeometryModel of(int gridLength, int subGridColumns, int subGridRows) {
+        long key = ((long) gridLength << 32) | ((long) subGridColumns << 16) | subGridRows;
+        synchronized (GEOMETRIES) {
+            BoardGeometryModel geometry = GEOMETRIES.get(key);
+            if (geometry == null) {
+                geometry = new BoardGeometryModel(gridLength, subGridColumns, subGridRows);
+                GEOMETRIES.put(key, geometry);
+            }
+            return geometry;
+        }
+    }
+
+    /**
+     * @return The length of the Sudoku grid/board.
+     * i.e. for a 9x9 Sudoku board, it will return 9
+     */
+    public int getGridLength() { return mGridLength; }
+
+    /**
+     * @return The number of cells in the Sudoku board.
+     * i.e. for a 9x9 Sudoku board, it will return 81
+     */
+    public int getGridSize() { return mGridSize; }
+
+    /**
+     * @return The height of each sub grid.
+     * i.e. for a 6x6 Sudoku board made of 2x3 sub grids, it will return 2
+     */
+    public int getSubGridRows() { return mSubGridRows; }
+
+    /**
+     * @return The width of each sub grid.
+     * i.e. for a 6x6 Sudoku board made of 2x3 sub grids, it will return 3
+     */
+    public int getSubGridColumns() { return mSubGridColumns; }
+
+    /**
+     * @return The number of peers of every cell, the other cells sharing its row, column or
+     * sub grid. i.e. for a 9x9 Sudoku board, it will return 20
+     */
+    public int getPeerCount() { return mPeerCount; }
+
+    /**
+     * @param index The row-major index of the cell
+     * @return The row the cell is in
+     */
+    public int getRowOf(int index) { return mRowOf[index]; }
+
+    /**
+     * @param index The row-major index of the cell
+     * @return The column the cell is in
+     */
+    public int getColumnOf(int index) { return mColumnOf[index]; }
+
+    /**
+     * @param index The row-major index of the cell
+     * @return The sub grid the cell is in, numbered left to right, top to bottom
+     */
+    public int getSubGridOf(int index) { return mSubGridOf[index]; }
+
+    /**
+     * @param index The row-major index of the cell
+     * @param position The position among the peers of the cell, 0 <= position < peerCount
+     * @return The row-major index of the peer
+     */
+    public int getPeer(int index, int position) { return mPeers[index * mPeerCount + position]; }
+
+    /**
+     * @param unit A row 0..n-1, a column n..2n-1 or a sub grid 2n..3n-1
+     * @param position The position of the cell within the unit, 0 <= position < n
+     * @return The row-major index of the cell
+     */
+    public int getUnitCell(int unit, int position) {
+        return mUnitCells[unit * mGridLength + position];
+    }
+
+    /**
+     * @return The row of every cell index, shared and never to be modified
+     */
+    int[] rowOf() { return mRowOf; }
+
+    /**
+     * @return The column of every cell index, shared and never to be modified
+     */
+    int[] columnOf() { return mColumnOf; }
+
+    /**
+     * @return The sub grid of every cell index, shared and never to be modified
+     */
+    int[] subGridOf() { return mSubGridOf; }
+
+    /**
+     * @return The cells of every row, then column, then sub grid, n per unit, shared and
+     * never to be modified
+     */
+    int[] unitCells() { return mUnitCells; }
+
+    /**
+     * @return The peers of every cell, peerCount per cell, shared and never to be modified
+     */
+    int[] peers() { return mPeers; }
+
+    private void addToUnit(int unit, int index, int[] unitSizes) {
+        mUnitCells[unit * mGridLength + unitSizes[unit]++] = index;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.sudokuvocabulary.models;
+
+public class CancellationTokenModel {
+
+    // Set once cancel() has been called, read by solver threads
+    private volatile boolean mCancelled = false;
+
+    /**
+     * <p>Asks every solver holding this token to stop as soon as possible.</p>
+     */
+    public void cancel() { mCancelled = true; }
+
+    /**
+     * @return True if cancel() has been called
+     */
+    public boolean isCancelled() { return mCancelled; }
+}
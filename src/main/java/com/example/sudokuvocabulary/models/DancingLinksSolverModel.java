@@ -0,0 +1,320 @@
+package com.example.sudokuvocabulary.models;
+
+import java.util.SplittableRandom;
+
+public class DancingLinksSolverModel {
+
+    // Index of the root header node
+    private static final int ROOT = 0;
+
+    // Height/Width of the total Sudoku board
+    private final int mGridLength;
+    // Number of cells in the Sudoku board
+    private final int mGridSize;
+    // Links of every node in the exact cover matrix, headers come first
+    private final int[] mLeft, mRight, mUp, mDown;
+    // Column header of every node
+    private final int[] mColumn;
+    // Candidate (cell index * grid length + number - 1) of every node
+    private final int[] mCandidate;
+    // Number of nodes left in each column
+    private final int[] mColumnSize;
+    // Columns of the row currently being added to the matrix
+    private final int[] mRowHeaders = new int[4];
+    // Candidate picked at each search depth
+    private final int[] mChosen;
+    // Scratch space used to shuffle the rows of each search depth
+    private final int[] mOrder;
+    // Row-major array of the board, filled in as the search goes
+    private final int[] mCells;
+    // Number of nodes created so far
+    private int mNodeCount;
+    // Number of candidates forced by the given cells
+    private int mGivenCount;
+    // False if the given cells contradict each other
+    private boolean mConsistent = true;
+    // Limits on the work a search may do, may be null
+    private SolverBudgetModel mBudget;
+    // Number of nodes expanded by the searches of this solver
+    private long mNodes;
+    // Why the last search returned
+    private SolverResultModel.Status mStatus = SolverResultModel.Status.COMPLETE;
+    // Counters of the work done by the searches, may be null
+    private SolverStatsModel mStats;
+
+    /**
+     * <h1>DancingLinksSolverModel</h1>
+     * <p>Builds the exact cover matrix of the given board. Each column is one of the
+     * cell, row, column or sub grid constraints and each row is a number placed in a cell,
+     * so any mSubGridRows x mSubGridColumns geometry is supported.</p>
+     * @param board The Sudoku board to solve, the board itself is never modified
+     */
+    public DancingLinksSolverModel(SudokuModel board) {
+        mGridLength = board.getGridLength();
+        mGridSize = board.getGridSize();
+        BoardGeometryModel geometry = board.getGeometry();
+        int columns = 4 * mGridSize;
+        int nodes = 1 + columns + 4 * mGridSize * mGridLength;
+
+        mLeft = new int[nodes];
+        mRight = new int[nodes];
+        mUp = new int[nodes];
+        mDown = new int[nodes];
+        mColumn = new int[nodes];
+        mCandidate = new int[nodes];
+        mColumnSize = new int[columns + 1];
+        mChosen = new int[mGridSize];
+        mOrder = new int[mGridSize * mGridLength];
+        mCells = new int[mGridSize];
+
+        // Link the column headers into a circular list around the root
+        for (int header = 0; header <= columns; header++) {
+            mLeft[header] = header == 0 ? columns : header - 1;
+            mRight[header] = header == columns ? 0 : header + 1;
+            mUp[header] = header;
+            mDown[header] = header;
+            mColumn[header] = header;
+        }
+        mNodeCount = columns + 1;
+
+        // Add one row per number per cell, given cells only get the row for their value
+        int[] firstNodeOfGiven = new int[mGridSize];
+        for (int index = 0; index < mGridSize; index++) {
+            int row = geometry.getRowOf(index), column = geometry.getColumnOf(index);
+            int subGrid = geometry.getSubGridOf(index);
+            int given = board.getValueAt(index);
+            for (int number = 1; number <= mGridLength; number++) {
+                if (given != 0 && given != number) { continue; }
+                int first = addRow(index * mGridLength + number - 1,
+                        1 + index,
+                        1 + mGridSize + row * mGridLength + number - 1,
+                        1 + 2 * mGridSize + column * mGridLength + number - 1,
+                        1 + 3 * mGridSize + subGrid * mGridLength + number - 1);
+                if (given != 0) { firstNodeOfGiven[mGivenCount++] = first; }
+            }
+        }
+
+        // Select the rows of the given cells before any search happens
+        for (int i = 0; i < mGivenCount; i++) {
+            int node = firstNodeOfGiven[i];
+            if (!select(node)) {
+                mConsistent = false;
+                return;
+            }
+            mChosen[i] = mCandidate[node];
+        }
+    }
+
+    /**
+     * <p>Limits the work done by the searches of this solver.</p>
+     * @param budget The budget to respect, null for an unlimited search
+     */
+    public void setBudget(SolverBudgetModel budget) {
+        mBudget = budget;
+    }
+
+    /**
+     * @return COMPLETE if the last search finished, otherwise the reason its budget stopped it
+     */
+    public SolverResultModel.Status getStatus() { return mStatus; }
+
+    /**
+     * <p>Makes the searches of this solver record what they do in the given stats object.</p>
+     * @param stats The stats to add to, null to turn recording off
+     */
+    public void setStats(SolverStatsModel stats) {
+        mStats = stats;
+    }
+
+    /**
+     * <p>Counts the exact covers of the board, stopping as soon as the limit is reached.</p>
+     * @param limit The number of solutions after which the search stops
+     * @return The number of solutions found, never more than limit
+     */
+    public int countSolutions(int limit) {
+        mStatus = SolverResultModel.Status.COMPLETE;
+        if (!mConsistent) { return 0; }
+        return count(0, 0, limit);
+    }
+
+    /**
+     * <p>Searches for the first exact cover, trying the rows of each column in a random
+     * order.</p>
+     * @param random The source of randomness used to order the rows
+     * @return True if a solution was found, false if the board is unsolvable
+     */
+    public boolean solve(SplittableRandom random) {
+        mStatus = SolverResultModel.Status.COMPLETE;
+        if (!mConsistent || !fill(mGivenCount, random)) { return false; }
+        for (int candidate : mChosen) {
+            mCells[candidate / mGridLength] = candidate % mGridLength + 1;
+        }
+        return true;
+    }
+
+    /**
+     * <p>Writes the solution found by {@link #solve(SplittableRandom)} into every empty cell of
+     * the given board.</p>
+     * @param board The board this solver was created from
+     */
+    public void copyTo(SudokuModel board) {
+        for (int index = 0; index < mGridSize; index++) {
+            int row = index / mGridLength, column = index % mGridLength;
+            if (!board.cellNotEmpty(row, column) && mCells[index] != 0) {
+                board.setValueAt(row, column, mCells[index]);
+            }
+        }
+    }
+
+    private int count(int depth, int solutions, int limit) {
+        if (outOfBudget()) { return solutions; }
+        recordNode(depth);
+        if (mRight[ROOT] == ROOT) {
+            if (mStats != null) { mStats.addSolutionFound(); }
+            return solutions + 1;
+        }
+        int header = smallestColumn();
+
+        cover(header);
+        for (int row = mDown[header]; row != header && solutions < limit
+                && mStatus == SolverResultModel.Status.COMPLETE; row = mDown[row]) {
+            if (mStats != null) { mStats.addCandidateTried(); }
+            for (int node = mRight[row]; node != row; node = mRight[node]) { cover(mColumn[node]); }
+            solutions = count(depth+1, solutions, limit);
+            for (int node = mLeft[row]; node != row; node = mLeft[node]) { uncover(mColumn[node]); }
+        }
+        uncover(header);
+        if (mStats != null) { mStats.addBacktrack(); }
+        return solutions;
+    }
+
+    private boolean fill(int depth, SplittableRandom random) {
+        if (outOfBudget()) { return false; }
+        recordNode(depth - mGivenCount);
+        if (mRight[ROOT] == ROOT) {
+            if (mStats != null) { mStats.addSolutionFound(); }
+            return true;
+        }
+        int header = smallestColumn();
+
+        // Shuffle the rows of the column into the scratch space of this depth
+        int offset = depth * mGridLength, size = 0;
+        for (int row = mDown[header]; row != header; row = mDown[row]) {
+            int swap = random.nextInt(size + 1);
+            mOrder[offset + size] = mOrder[offset + swap];
+            mOrder[offset + swap] = row;
+            size++;
+        }
+
+        cover(header);
+        for (int i = 0; i < size && mStatus == SolverResultModel.Status.COMPLETE; i++) {
+            int row = mOrder[offset + i];
+            mChosen[depth] = mCandidate[row];
+            if (mStats != null) { mStats.addCandidateTried(); }
+            for (int node = mRight[row]; node != row; node = mRight[node]) { cover(mColumn[node]); }
+            boolean solved = fill(depth+1, random);
+            for (int node = mLeft[row]; node != row; node = mLeft[node]) { uncover(mColumn[node]); }
+            if (solved) {
+                uncover(header);
+                return true;
+            }
+        }
+        uncover(header);
+        if (mStats != null) { mStats.addBacktrack(); }
+        return false;
+    }
+
+    private void recordNode(int depth) {
+        if (mStats != null) {
+            mStats.addNode();
+            mStats.reachDepth(depth);
+        }
+    }
+
+    /**
+     * @return True if the budget has run out, mStatus then holds the reason
+     */
+    private boolean outOfBudget() {
+        if (mBudget == null) { return false; }
+        mStatus = mBudget.check(++mNodes);
+        return mStatus != SolverResultModel.Status.COMPLETE;
+    }
+
+    /**
+     * @return The column header with the fewest remaining rows
+     */
+    private int smallestColumn() {
+        int best = mRight[ROOT];
+        for (int header = mRight[best]; header != ROOT; header = mRight[header]) {
+            if (mColumnSize[header] < mColumnSize[best]) {
+                best = header;
+                if (mColumnSize[best] <= 1) { break; }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * <p>Covers every column of the row containing the given node.</p>
+     * @return False if one of the columns was already covered by another given cell
+     */
+    private boolean select(int node) {
+        int row = node;
+        do {
+            int header = mColumn[node];
+            if (mLeft[mRight[header]] != header) { return false; }
+            cover(header);
+            node = mRight[node];
+        } while (node != row);
+        return true;
+    }
+
+    private void cover(int header) {
+        mRight[mLeft[header]] = mRight[header];
+        mLeft[mRight[header]] = mLeft[header];
+        for (int row = mDown[header]; row != header; row = mDown[row]) {
+            for (int node = mRight[row]; node != row; node = mRight[node]) {
+                mDown[mUp[node]] = mDown[node];
+                mUp[mDown[node]] = mUp[node];
+                mColumnSize[mColumn[node]]--;
+            }
+        }
+    }
+
+    private void uncover(int header) {
+        for (int row = mUp[header]; row != header; row = mUp[row]) {
+            for (int node = mLeft[row]; node != row; node = mLeft[node]) {
+                mColumnSize[mColumn[node]]++;
+                mDown[mUp[node]] = node;
+                mUp[mDown[node]] = node;
+            }
+        }
+        mRight[mLeft[header]] = header;
+        mLeft[mRight[header]] = header;
+    }
+
+    /**
+     * <p>Appends a row with one node in each of the four given columns.</p>
+     * @return The first node of the new row
+     */
+    private int addRow(int candidate, int cellHeader, int rowHeader, int columnHeader, int subGridHeader) {
+        mRowHeaders[0] = cellHeader;
+        mRowHeaders[1] = rowHeader;
+        mRowHeaders[2] = columnHeader;
+        mRowHeaders[3] = subGridHeader;
+        int first = mNodeCount;
+        for (int i = 0; i < mRowHeaders.length; i++) {
+            int node = mNodeCount++, header = mRowHeaders[i];
+            mColumn[node] = header;
+            mCandidate[node] = candidate;
+            mUp[node] = mUp[header];
+            mDown[node] = header;
+            mDown[mUp[header]] = node;
+            mUp[header] = node;
+            mColumnSize[header]++;
+            mLeft[node] = i == 0 ? node + mRowHeaders.length - 1 : node - 1;
+            mRight[node] = i == mRowHeaders.length - 1 ? first : node + 1;
+        }
+        return first;
+    }
+}
@@ -0,0 +1,348 @@
+package com.example.sudokuvocabulary.models;
+
+import com.example.sudokuvocabulary.models.DifficultyRatingModel.Technique;
+
+import java.util.Arrays;
+
+public class DifficultyRaterModel {
+
+    // Height/Width of the total Sudoku board
+    private final int mGridLength;
+    // Number of cells in the Sudoku board
+    private final int mGridSize;
+    // Bitmask with one bit set for every number that can be placed in a cell
+    private final int mAllCandidates;
+    // Cell indices of every row, then every column, then every sub grid, shared with the
+    // board geometry
+    private final int[] mUnitCells;
+    // Row, column and sub grid number of every cell index, shared with the board geometry
+    private final int[] mRowOf, mColumnOf, mSubGridOf;
+    // Peers of every cell, mPeerCount per cell, shared with the board geometry
+    private final int[] mPeers;
+    // Number of peers of every cell
+    private final int mPeerCount;
+    // Row-major array of the board being rated, zero for empty cells
+    private final int[] mCells;
+    // Pencil marks of every empty cell, bit (n-1) is set if the number n is a candidate
+    private final int[] mCandidates;
+    // Scratch space holding the positions of each number within one unit
+    private final int[] mPositions;
+    // Number of times each technique made progress during the current rating
+    private final int[] mUses = new int[Technique.values().length];
+    // Number of empty cells left in the board being rated
+    private int mEmptyCount;
+    // False once the board has been found to break the Sudoku rules
+    private boolean mConsistent;
+
+    /**
+     * <h1>DifficultyRaterModel</h1>
+     * <p>Creates a rater for boards of the given geometry. A rater can rate any number of
+     * boards of that geometry one after another, but is not thread safe.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     */
+    public DifficultyRaterModel(int gridLength, int subGridColumns, int subGridRows) {
+        mGridLength = gridLength;
+        mGridSize = gridLength*gridLength;
+        mAllCandidates = (1 << gridLength) - 1;
+        BoardGeometryModel geometry = BoardGeometryModel.of(gridLength, subGridColumns,
+                subGridRows);
+        mUnitCells = geometry.unitCells();
+        mRowOf = geometry.rowOf();
+        mColumnOf = geometry.columnOf();
+        mSubGridOf = geometry.subGridOf();
+        mPeers = geometry.peers();
+        mPeerCount = geometry.getPeerCount();
+        mCells = new int[mGridSize];
+        mCandidates = new int[mGridSize];
+        mPositions = new int[gridLength];
+    }
+
+    /**
+     * <h1>DifficultyRaterModel</h1>
+     * <p>Creates a rater for boards with the same geometry as the given board.</p>
+     * @param board A board of the geometry to rate
+     */
+    public DifficultyRaterModel(SudokuModel board) {
+        this(board.getGridLength(), board.getSubGridColumns(), board.getSubGridRows());
+    }
+
+    /**
+     * <p>Solves the board the way a person would, always using the easiest technique that
+     * makes progress, and records every step. The board is not modified.</p>
+     * @param board The puzzle to rate, which should have a unique solution
+     * @return The techniques needed, their total cost and the resulting difficulty band
+     */
+    public DifficultyRatingModel rate(SudokuModel board) {
+        load(board);
+        int totalCost = 0;
+        while (mConsistent && mEmptyCount > 0) {
+            Technique technique = step();
+            if (technique == null) { break; }
+            mUses[technique.ordinal()]++;
+            totalCost += technique.getCost();
+        }
+        return new DifficultyRatingModel(mUses.clone(), totalCost,
+                mConsistent && mEmptyCount == 0);
+    }
+
+    private void load(SudokuModel board) {
+        Arrays.fill(mUses, 0);
+        mConsistent = true;
+        mEmptyCount = 0;
+        for (int index = 0; index < mGridSize; index++) {
+            mCells[index] = board.getValueAt(index);
+            mCandidates[index] = mCells[index] == 0 ? mAllCandidates : 0;
+            if (mCells[index] == 0) { mEmptyCount++; }
+        }
+        for (int index = 0; index < mGridSize; index++) {
+            if (mCells[index] != 0) { removeFromPeers(index, bit(mCells[index])); }
+        }
+    }
+
+    /**
+     * <p>Applies the first technique, in the order of {@link Technique}, which makes
+     * progress.</p>
+     * @return The technique applied, null if none of them helps or the board is broken
+     */
+    private Technique step() {
+        if (hiddenSingle()) { return Technique.HIDDEN_SINGLE; }
+        if (nakedSingle()) { return Technique.NAKED_SINGLE; }
+        if (!mConsistent) { return null; }
+        if (nakedPair()) { return Technique.NAKED_PAIR; }
+        if (hiddenPair()) { return Technique.HIDDEN_PAIR; }
+        if (pointing()) { return Technique.POINTING; }
+        if (boxLine()) { return Technique.BOX_LINE; }
+        if (xWing()) { return Technique.X_WING; }
+        return null;
+    }
+
+    private boolean hiddenSingle() {
+        for (int unit = 0; unit < 3 * mGridLength; unit++) {
+            int offset = unit * mGridLength, once = 0, twice = 0;
+            for (int i = offset; i < offset + mGridLength; i++) {
+                int candidates = mCandidates[mUnitCells[i]];
+                twice |= once & candidates;
+                once |= candidates;
+            }
+            int hidden = once & ~twice;
+            if (hidden == 0) { continue; }
+            int mask = hidden & -hidden;
+            for (int i = offset; i < offset + mGridLength; i++) {
+                int index = mUnitCells[i];
+                if ((mCandidates[index] & mask) != 0) {
+                    place(index, mask);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>Also marks the board as broken if an empty cell has no candidates left.</p>
+     */
+    private boolean nakedSingle() {
+        for (int index = 0; index < mGridSize; index++) {
+            if (mCells[index] != 0) { continue; }
+            int candidates = mCandidates[index];
+            if (candidates == 0) {
+                mConsistent = false;
+                return false;
+            }
+            if ((candidates & (candidates - 1)) == 0) {
+                place(index, candidates);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean nakedPair() {
+        for (int unit = 0; unit < 3 * mGridLength; unit++) {
+            int offset = unit * mGridLength;
+            for (int i = offset; i < offset + mGridLength; i++) {
+                int pair = mCandidates[mUnitCells[i]];
+                if (Integer.bitCount(pair) != 2) { continue; }
+                for (int j = i + 1; j < offset + mGridLength; j++) {
+                    if (mCandidates[mUnitCells[j]] != pair) { continue; }
+                    boolean progress = false;
+                    for (int k = offset; k < offset + mGridLength; k++) {
+                        if (k != i && k != j) { progress |= eliminate(mUnitCells[k], pair); }
+                    }
+                    if (progress) { return true; }
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean hiddenPair() {
+        for (int unit = 0; unit < 3 * mGridLength; unit++) {
+            int offset = unit * mGridLength;
+            unitPositions(offset);
+            for (int first = 0; first < mGridLength; first++) {
+                int cells = mPositions[first];
+                if (Integer.bitCount(cells) != 2) { continue; }
+                for (int second = first + 1; second < mGridLength; second++) {
+                    if (mPositions[second] != cells) { continue; }
+                    int pair = (1 << first) | (1 << second);
+                    boolean progress = false;
+                    for (int k = 0; k < mGridLength; k++) {
+                        if ((cells & (1 << k)) != 0) {
+                            progress |= eliminate(mUnitCells[offset + k], ~pair);
+                        }
+                    }
+                    if (progress) { return true; }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>A number whose candidates in a sub grid all lie on one row or column cannot be
+     * anywhere else on that row or column.</p>
+     */
+    private boolean pointing() {
+        for (int subGrid = 0; subGrid < mGridLength; subGrid++) {
+            int offset = (2 * mGridLength + subGrid) * mGridLength;
+            for (int mask = 1; mask <= mAllCandidates && mask > 0; mask <<= 1) {
+                int row = -1, column = -1;
+                for (int i = offset; i < offset + mGridLength; i++) {
+                    int index = mUnitCells[i];
+                    if ((mCandidates[index] & mask) == 0) { continue; }
+                    row = row == -1 || row == mRowOf[index] ? mRowOf[index] : -2;
+                    column = column == -1 || column == mColumnOf[index] ? mColumnOf[index] : -2;
+                }
+                if (row >= 0 && eliminateOutsideSubGrid(row, subGrid, mask)) { return true; }
+                if (column >= 0 && eliminateOutsideSubGrid(mGridLength + column, subGrid, mask)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>A number whose candidates in a row or column all lie in one sub grid cannot be
+     * anywhere else in that sub grid.</p>
+     */
+    private boolean boxLine() {
+        for (int line = 0; line < 2 * mGridLength; line++) {
+            int offset = line * mGridLength;
+            for (int mask = 1; mask <= mAllCandidates && mask > 0; mask <<= 1) {
+                int subGrid = -1;
+                for (int i = offset; i < offset + mGridLength; i++) {
+                    int index = mUnitCells[i];
+                    if ((mCandidates[index] & mask) == 0) { continue; }
+                    subGrid = subGrid == -1 || subGrid == mSubGridOf[index] ? mSubGridOf[index] : -2;
+                }
+                if (subGrid < 0) { continue; }
+                boolean progress = false;
+                int subGridOffset = (2 * mGridLength + subGrid) * mGridLength;
+                for (int i = subGridOffset; i < subGridOffset + mGridLength; i++) {
+                    int index = mUnitCells[i];
+                    int indexLine = line < mGridLength ? mRowOf[index] : mGridLength + mColumnOf[index];
+                    if (indexLine != line) { progress |= eliminate(index, mask); }
+                }
+                if (progress) { return true; }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>If a number can only go in the same two columns of two rows, one of each pair of
+     * cells holds it, so no other row can have it in those columns. The same holds with
+     * rows and columns swapped.</p>
+     */
+    private boolean xWing() {
+        for (int mask = 1; mask <= mAllCandidates && mask > 0; mask <<= 1) {
+            for (int lines = 0; lines < 2 * mGridLength; lines += mGridLength) {
+                int crossLines = mGridLength - lines;
+                for (int first = 0; first < mGridLength; first++) {
+                    int positions = linePositions(lines + first, mask);
+                    if (Integer.bitCount(positions) != 2) { continue; }
+                    for (int second = first + 1; second < mGridLength; second++) {
+                        if (linePositions(lines + second, mask) != positions) { continue; }
+                        boolean progress = false;
+                        for (int cross = 0; cross < mGridLength; cross++) {
+                            if ((positions & (1 << cross)) == 0) { continue; }
+                            int offset = (crossLines + cross) * mGridLength;
+                            for (int k = 0; k < mGridLength; k++) {
+                                if (k != first && k != second) {
+                                    progress |= eliminate(mUnitCells[offset + k], mask);
+                                }
+                            }
+                        }
+                        if (progress) { return true; }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * <p>Fills mPositions with a bitmask of the positions within the unit of each number.</p>
+     */
+    private void unitPositions(int offset) {
+        Arrays.fill(mPositions, 0);
+        for (int k = 0; k < mGridLength; k++) {
+            int candidates = mCandidates[mUnitCells[offset + k]];
+            while (candidates != 0) {
+                int number = Integer.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+                mPositions[number] |= 1 << k;
+            }
+        }
+    }
+
+    /**
+     * @return A bitmask of the positions within the unit of the cells with the candidate
+     */
+    private int linePositions(int unit, int mask) {
+        int positions = 0, offset = unit * mGridLength;
+        for (int k = 0; k < mGridLength; k++) {
+            if ((mCandidates[mUnitCells[offset + k]] & mask) != 0) { positions |= 1 << k; }
+        }
+        return positions;
+    }
+
+    private boolean eliminateOutsideSubGrid(int line, int subGrid, int mask) {
+        boolean progress = false;
+        int offset = line * mGridLength;
+        for (int i = offset; i < offset + mGridLength; i++) {
+            int index = mUnitCells[i];
+            if (mSubGridOf[index] != subGrid) { progress |= eliminate(index, mask); }
+        }
+        return progress;
+    }
+
+    /**
+     * @return True if the cell had any of the candidates in the mask
+     */
+    private boolean eliminate(int index, int mask) {
+        if ((mCandidates[index] & mask) == 0) { return false; }
+        mCandidates[index] &= ~mask;
+        return true;
+    }
+
+    private void place(int index, int mask) {
+        mCells[index] = Integer.numberOfTrailingZeros(mask) + 1;
+        mCandidates[index] = 0;
+        mEmptyCount--;
+        removeFromPeers(index, mask);
+    }
+
+    private void removeFromPeers(int index, int mask) {
+        int offset = index * mPeerCount;
+        for (int i = offset; i < offset + mPeerCount; i++) { mCandidates[mPeers[i]] &= ~mask; }
+    }
+
+    private static int bit(int value) {
+        return 1 << (value - 1);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.sudokuvocabulary.models;
+
+public class DifficultyRatingModel {
+
+    /**
+     * How hard a puzzle is for a person, set by the hardest technique it needs.
+     */
+    public enum Band {
+        // Solved with singles only
+        EASY,
+        // Needs naked or hidden pairs
+        MEDIUM,
+        // Needs pointing or box-line reduction
+        HARD,
+        // Needs an X-wing
+        EXPERT,
+        // Cannot be solved with the techniques the rater knows, players would have to guess
+        EXTREME,
+    }
+
+    /**
+     * The solving techniques the rater knows, in the order it tries them.
+     */
+    public enum Technique {
+        // A number can only go in one cell of a row, column or sub grid
+        HIDDEN_SINGLE(1, Band.EASY),
+        // A cell has only one candidate left
+        NAKED_SINGLE(2, Band.EASY),
+        // Two cells of a unit share the same two candidates, which leave the rest of the unit
+        NAKED_PAIR(6, Band.MEDIUM),
+        // Two numbers can only go in the same two cells of a unit, which lose other candidates
+        HIDDEN_PAIR(8, Band.MEDIUM),
+        // A number confined to one line of a sub grid leaves the rest of that line
+        POINTING(10, Band.HARD),
+        // A number confined to one sub grid along a line leaves the rest of that sub grid
+        BOX_LINE(12, Band.HARD),
+        // A number confined to the same two columns in two rows, or the reverse, leaves the
+        // rest of those columns
+        X_WING(25, Band.EXPERT);
+
+        // Cost added to the rating every time the technique makes progress
+        private final int mCost;
+        // Band of any puzzle which needs the technique
+        private final Band mBand;
+
+        Technique(int cost, Band band) {
+            mCost = cost;
+            mBand = band;
+        }
+
+        /**
+         * @return The cost added to the rating every time the technique makes progress
+         */
+        public int getCost() { return mCost; }
+
+        /**
+         * @return The band of any puzzle which needs the technique
+         */
+        public Band getBand() { return mBand; }
+    }
+
+    // Number of times each technique made progress, indexed by ordinal
+    private final int[] mUses;
+    // Sum of the cost of every step
+    private final int mTotalCost;
+    // True if the techniques were enough to fill every cell
+    private final boolean mSolved;
+
+    /**
+     * <h1>DifficultyRatingModel</h1>
+     * @param uses The number of times each technique made progress, indexed by ordinal
+     * @param totalCost The sum of the cost of every step
+     * @param solved True if the techniques were enough to fill every cell
+     */
+    public DifficultyRatingModel(int[] uses, int totalCost, boolean solved) {
+        mUses = uses;
+        mTotalCost = totalCost;
+        mSolved = solved;
+    }
+
+    /**
+     * @param technique The technique to look up
+     * @return The number of times the technique made progress
+     */
+    public int getUses(Technique technique) { return mUses[technique.ordinal()]; }
+
+    /**
+     * @return The sum of the cost of every step taken to solve the puzzle
+     */
+    public int getTotalCost() { return mTotalCost; }
+
+    /**
+     * @return True if the techniques were enough to fill every cell
+     */
+    public boolean isSolved() { return mSolved; }
+
+    /**
+     * @return The hardest technique the puzzle needed, null if no step was taken
+     */
+    public Technique getHardestTechnique() {
+        Technique[] techniques = Technique.values();
+        for (int i = techniques.length - 1; i >= 0; i--) {
+            if (mUses[i] > 0) { return techniques[i]; }
+        }
+        return null;
+    }
+
+    /**
+     * @return The difficulty band of the puzzle, EXTREME if the techniques were not enough
+     */
+    public Band getBand() {
+        if (!mSolved) { return Band.EXTREME; }
+        Technique hardest = getHardestTechnique();
+        return hardest == null ? Band.EASY : hardest.getBand();
+    }
+}
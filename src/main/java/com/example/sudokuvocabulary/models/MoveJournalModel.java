@@ -0,0 +1,176 @@
+package com.example.sudokuvocabulary.models;
+
+import java.io.Serializable;
+
+public class MoveJournalModel implements Serializable {
+
+    // Number of moves kept by default before the oldest ones are overwritten
+    public static final int DEFAULT_CAPACITY = 4096;
+    // Serialization UID
+    private static final long serialVersionUID = 1;
+    // Number of slots of a new journal, doubled whenever they run out up to the capacity
+    private static final int INITIAL_SLOTS = 16;
+
+    // Most moves kept at once
+    private final int mCapacity;
+    // Cell index of the move in every slot
+    private int[] mCells;
+    // Value of the cell before the move in the high byte, after it in the low byte
+    private short[] mValues;
+    // Time of every move in milliseconds since the epoch
+    private long[] mTimes;
+    // Slot of the oldest move kept
+    private int mStart;
+    // Number of moves kept, both applied and undone
+    private int mSize;
+    // Number of kept moves which are applied, the rest can be redone
+    private int mPosition;
+    // Number of moves ever recorded, including overwritten and discarded ones
+    private long mRecorded;
+
+    /**
+     * <h1>MoveJournalModel</h1>
+     * <p>Creates an empty journal keeping up to DEFAULT_CAPACITY moves.</p>
+     */
+    public MoveJournalModel() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * <h1>MoveJournalModel</h1>
+     * <p>Creates an empty journal. Its arrays start small and double as moves are recorded,
+     * until the capacity is reached and the journal becomes a ring buffer overwriting its
+     * oldest moves.</p>
+     * @param capacity The most moves kept at once, at least one
+     */
+    public MoveJournalModel(int capacity) {
+        mCapacity = capacity;
+        int slots = Math.min(INITIAL_SLOTS, capacity);
+        mCells = new int[slots];
+        mValues = new short[slots];
+        mTimes = new long[slots];
+    }
+
+    /**
+     * <p>Appends a move after the applied moves, discarding every move which was undone
+     * since they can no longer be redone.</p>
+     * @param index The row-major index of the cell changed
+     * @param oldValue The value of the cell before the move, 0 <= oldValue <= 255
+     * @param newValue The value of the cell after the move, 0 <= newValue <= 255
+     * @param timeMillis The time of the move
+     */
+    public void record(int index, int oldValue, int newValue, long timeMillis) {
+        mSize = mPosition;
+        if (mSize == mCells.length) {
+            if (mCells.length < mCapacity) {
+                grow();
+            } else {
+                mStart = (mStart + 1) % mCells.length;
+                mSize--;
+                mPosition--;
+            }
+        }
+        int slot = slot(mSize);
+        mCells[slot] = index;
+        mValues[slot] = (short) (oldValue << 8 | newValue);
+        mTimes[slot] = timeMillis;
+        mSize++;
+        mPosition++;
+        mRecorded++;
+    }
+
+    /**
+     * @return True if there is an applied move to undo
+     */
+    public boolean canUndo() { return mPosition > 0; }
+
+    /**
+     * @return True if there is an undone move to redo
+     */
+    public boolean canRedo() { return mPosition < mSize; }
+
+    /**
+     * <p>Marks the last applied move as undone. The caller restores its old value.</p>
+     * @return The number of the move undone, to look up with the getters
+     */
+    public int stepBack() {
+        if (!canUndo()) { throw new IllegalStateException("No move to undo"); }
+        return --mPosition;
+    }
+
+    /**
+     * <p>Marks the first undone move as applied again. The caller sets its new value.</p>
+     * @return The number of the move redone, to look up with the getters
+     */
+    public int stepForward() {
+        if (!canRedo()) { throw new IllegalStateException("No move to redo"); }
+        return mPosition++;
+    }
+
+    /**
+     * @return The number of moves kept, both applied and undone. Moves are numbered from
+     * zero, the oldest kept move first
+     */
+    public int getSize() { return mSize; }
+
+    /**
+     * @return The number of kept moves which are applied, moves from this number on have
+     * been undone
+     */
+    public int getPosition() { return mPosition; }
+
+    /**
+     * @return The number of moves ever recorded. An autosave can remember this number and
+     * later write only the moves recorded since, the last getRecordedCount() - mark moves
+     * as long as that is no more than getSize()
+     */
+    public long getRecordedCount() { return mRecorded; }
+
+    /**
+     * @param move The number of the move, 0 <= move < getSize()
+     * @return The row-major index of the cell the move changed
+     */
+    public int getCellAt(int move) { return mCells[slot(move)]; }
+
+    /**
+     * @param move The number of the move, 0 <= move < getSize()
+     * @return The value of the cell before the move
+     */
+    public int getOldValueAt(int move) { return (mValues[slot(move)] >> 8) & 0xFF; }
+
+    /**
+     * @param move The number of the move, 0 <= move < getSize()
+     * @return The value of the cell after the move
+     */
+    public int getNewValueAt(int move) { return mValues[slot(move)] & 0xFF; }
+
+    /**
+     * @param move The number of the move, 0 <= move < getSize()
+     * @return The time of the move in milliseconds since the epoch
+     */
+    public long getTimeAt(int move) { return mTimes[slot(move)]; }
+
+    private int slot(int move) {
+        return (mStart + move) % mCells.length;
+    }
+
+    /**
+     * <p>Doubles the number of slots, up to the capacity, moving the oldest move to slot
+     * zero.</p>
+     */
+    private void grow() {
+        int slots = (int) Math.min((long) mCells.length * 2, mCapacity);
+        int[] cells = new int[slots];
+        short[] values = new short[slots];
+        long[] times = new long[slots];
+        for (int move = 0; move < mSize; move++) {
+            cells[move] = mCells[slot(move)];
+            values[move] = mValues[slot(move)];
+            times[move] = mTimes[slot(move)];
+        }
+        mCells = cells;
+        mValues = values;
+        mTimes = times;
+        mStart = 0;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.sudokuvocabulary.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class ParallelPuzzleDiggerModel {
+
+    // What a speculative removal check found out about a cell
+    private enum Check {
+        // The cell could be emptied from the puzzle the check started from
+        REMOVABLE,
+        // The cell is needed, which stays true however many other cells are emptied
+        NEEDED,
+        // The check ran out of nodes or time
+        UNKNOWN,
+        // The check was cancelled
+        CANCELLED,
+    }
+
+    // Digger holding the puzzle with every committed removal
+    private final PuzzleDiggerModel mDigger;
+    // One copy of the committed puzzle per concurrent check, kept in step with mDigger
+    private final PuzzleDiggerModel[] mCopies;
+    // Stats of every copy, merged into mStats after each call
+    private final SolverStatsModel[] mCopyStats;
+    // Pool the checks of a batch run in
+    private final ForkJoinPool mPool;
+    // Counters of the work done by every check, may be null
+    private SolverStatsModel mStats;
+
+    /**
+     * <h1>ParallelPuzzleDiggerModel</h1>
+     * <p>Starts digging a puzzle out of the given solved board with several removal checks
+     * running at once, each on its own copy of the puzzle.</p>
+     * @param board A fully solved Sudoku board, the board itself is never modified
+     * @param engine The engine whose digger checks the removals
+     * @param pool The pool the checks run in
+     * @param batchSize The number of removals checked at once, usually the pool's parallelism
+     */
+    public ParallelPuzzleDiggerModel(SudokuModel board, SolverEngineModel engine, ForkJoinPool pool,
+                                     int batchSize) {
+        mDigger = engine.newDigger(board);
+        mPool = pool;
+        mCopies = new PuzzleDiggerModel[batchSize];
+        mCopyStats = new SolverStatsModel[batchSize];
+        for (int i = 0; i < batchSize; i++) { mCopies[i] = new PuzzleDiggerModel(mDigger); }
+    }
+
+    /**
+     * <p>Makes the removal checks record what they do in the given stats object.</p>
+     * @param stats The stats to add to, null to turn recording off
+     */
+    public void setStats(SolverStatsModel stats) {
+        mStats = stats;
+        mDigger.setStats(stats);
+        for (int i = 0; i < mCopies.length; i++) {
+            mCopyStats[i] = stats == null ? null : new SolverStatsModel();
+            mCopies[i].setStats(mCopyStats[i]);
+        }
+    }
+
+    /**
+     * @return The digger holding the puzzle with every removal made so far, to keep digging
+     * with sequentially. Removals made through it are not seen by later parallel calls.
+     */
+    public PuzzleDiggerModel getDigger() { return mDigger; }
+
+    /**
+     * <p>Tries to empty the given cells in order, like calling
+     * {@link PuzzleDiggerModel#tryRemove} on each of them, until the given number of cells
+     * have been emptied. The next batchSize cells are checked at once against the current
+     * puzzle, then committed in order. A cell found to be needed stays needed once more
+     * cells are emptied, so it is skipped for good. The first removable cell of a batch is
+     * committed straight away, the following ones were checked against a puzzle which has
+     * changed since and are checked again on the calling thread. The result is the same
+     * puzzle the sequential loop would dig, unless checks run out of budget.</p>
+     * @param cells The row and column of every cell to try, in order
+     * @param numOfEmptyCells The number of cells to empty at most
+     * @param budget The node, time and cancellation limits of every check, null for none
+     * @return For every cell, true if it was emptied
+     */
+    public boolean[] tryRemoveAll(int[][] cells, int numOfEmptyCells, SolverBudgetModel budget) {
+        boolean[] removed = new boolean[cells.length];
+        int next = 0;
+        while (next < cells.length && numOfEmptyCells > 0) {
+            int batchSize = Math.min(mCopies.length, cells.length - next);
+            Check[] checks = checkBatch(cells, next, batchSize, budget);
+            boolean changed = false, cancelled = false;
+            for (int i = 0; i < batchSize && numOfEmptyCells > 0 && !cancelled; i++) {
+                int[] cell = cells[next + i];
+                cancelled = checks[i] == Check.CANCELLED
+                        || mDigger.getStatus() == SolverResultModel.Status.CANCELLED;
+                if (cancelled || checks[i] == Check.NEEDED) { continue; }
+                if (checks[i] == Check.UNKNOWN && !changed) { continue; }
+                if (checks[i] == Check.REMOVABLE && !changed) {
+                    mDigger.remove(cell[0], cell[1]);
+                } else if (!mDigger.tryRemove(cell[0], cell[1], budget)) {
+                    continue;
+                }
+                for (PuzzleDiggerModel copy: mCopies) { copy.remove(cell[0], cell[1]); }
+                removed[next + i] = true;
+                changed = true;
+                numOfEmptyCells--;
+            }
+            if (cancelled) { break; }
+            next += batchSize;
+        }
+        if (mStats != null) {
+            for (SolverStatsModel stats: mCopyStats) {
+                mStats.merge(stats);
+                stats.reset();
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * <p>Checks every cell of the batch against the committed puzzle at the same time, each
+     * copy putting its cell back afterwards.</p>
+     */
+    private Check[] checkBatch(int[][] cells, int start, int batchSize, SolverBudgetModel budget) {
+        List<Callable<Check>> tasks = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            PuzzleDiggerModel copy = mCopies[i];
+            int row = cells[start + i][0], column = cells[start + i][1];
+            tasks.add(() -> {
+                if (copy.tryRemove(row, column, budget)) {
+                    copy.restore(row, column);
+                    return Check.REMOVABLE;
+                }
+                switch (copy.getStatus()) {
+                    case COMPLETE: return Check.NEEDED;
+                    case CANCELLED: return Check.CANCELLED;
+                    default: return Check.UNKNOWN;
+                }
+            });
+        }
+        Check[] checks = new Check[batchSize];
+        try {
+            List<Future<Check>> results = mPool.invokeAll(tasks);
+            for (int i = 0; i < batchSize; i++) { checks[i] = results.get(i).get(); }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while checking removals", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Removal check failed", e);
+        }
+        return checks;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.sudokuvocabulary.models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ParallelSolverModel {
+
+    // Number of solutions after which counting stops, enough to tell if a solution is unique
+    private static final int SOLUTION_LIMIT = 2;
+
+    /**
+     * <p>Counts the solutions of the given board by splitting the search at the first few
+     * branching cells into fork/join tasks. Every task searches its own copy of the board and
+     * all of them stop as soon as the shared count shows the solution is not unique. The
+     * tasks count their nodes together, so the node limit of the budget applies to the
+     * whole count rather than to each task.</p>
+     * @param board The Sudoku board to check, the board itself is never modified
+     * @param splitDepth The number of branching cells to split on before searching
+     *                   sequentially, 0 searches on the calling thread only
+     * @param pool The pool to run the tasks in
+     * @param budget The budget the tasks' searches share, may be null
+     * @param stats The stats the counters of every task are merged into, may be null
+     * @return The number of solutions found, at most 2, and whether any task ran out of budget
+     */
+    public static SolverResultModel solutions(SudokuModel board, int splitDepth, ForkJoinPool pool,
+                                              SolverBudgetModel budget, SolverStatsModel stats) {
+        BitmaskSolverModel solver = new BitmaskSolverModel(board, true, false);
+        if (!solver.isConsistent()) {
+            return new SolverResultModel(0, SolverResultModel.Status.COMPLETE);
+        }
+        AtomicInteger counter = new AtomicInteger();
+        AtomicLong nodes = new AtomicLong();
+        AtomicReference<SolverResultModel.Status> status =
+                new AtomicReference<>(SolverResultModel.Status.COMPLETE);
+        pool.invoke(new CountTask(solver, splitDepth, counter, nodes, budget, status, stats));
+        int solutions = Math.min(counter.get(), SOLUTION_LIMIT);
+        // Running out of budget does not matter once a second solution has been found
+        return new SolverResultModel(solutions, solutions >= SOLUTION_LIMIT ?
+                SolverResultModel.Status.COMPLETE : status.get());
+    }
+
+    /**
+     * <p>Counts the solutions of the given board in the common fork/join pool.</p>
+     * @param board The Sudoku board to check, the board itself is never modified
+     * @param splitDepth The number of branching cells to split on before searching
+     *                   sequentially
+     * @return 0 if the board has no solution, 1 if it is unique, 2 if there are several
+     */
+    public static int solutions(SudokuModel board, int splitDepth) {
+        return solutions(board, splitDepth, ForkJoinPool.commonPool(), null, null).getSolutions();
+    }
+
+    private static class CountTask extends RecursiveAction {
+        private static final long serialVersionUID = 1;
+        private final BitmaskSolverModel mSolver;
+        private final int mSplitDepth;
+        private final AtomicInteger mCounter;
+        private final AtomicLong mNodes;
+        private final SolverBudgetModel mBudget;
+        private final AtomicReference<SolverResultModel.Status> mStatus;
+        private final SolverStatsModel mStats;
+
+        CountTask(BitmaskSolverModel solver, int splitDepth, AtomicInteger counter,
+                  AtomicLong nodes, SolverBudgetModel budget, AtomicReference<SolverResultModel.Status> status,
+                  SolverStatsModel stats) {
+            mSolver = solver;
+            mSplitDepth = splitDepth;
+            mCounter = counter;
+            mNodes = nodes;
+            mBudget = budget;
+            mStatus = status;
+            mStats = stats;
+        }
+
+        @Override
+        protected void compute() {
+            if (mCounter.get() >= SOLUTION_LIMIT
+                    || mStatus.get() != SolverResultModel.Status.COMPLETE) { return; }
+
+            int cell = mSolver.mostConstrainedCell();
+            if (mSplitDepth <= 0 || cell < 0) {
+                SolverStatsModel stats = mStats == null ? null : new SolverStatsModel();
+                mSolver.shareSolutionCounter(mCounter);
+                mSolver.shareNodeCounter(mNodes);
+                mSolver.setBudget(mBudget);
+                mSolver.setStats(stats);
+                mSolver.countSolutions(SOLUTION_LIMIT);
+                mStatus.compareAndSet(SolverResultModel.Status.COMPLETE, mSolver.getStatus());
+                if (stats != null) { mStats.merge(stats); }
+                return;
+            }
+
+            // Give every candidate of the most constrained cell its own board copy
+            List<CountTask> branches = new ArrayList<>();
+            int candidates = mSolver.candidatesAt(cell);
+            while (candidates != 0) {
+                int mask = candidates & -candidates;
+                candidates ^= mask;
+                BitmaskSolverModel branch = new BitmaskSolverModel(mSolver);
+                branch.fixValueAt(cell, Integer.numberOfTrailingZeros(mask) + 1);
+                branches.add(new CountTask(branch, mSplitDepth - 1, mCounter, mNodes, mBudget,
+                        mStatus, mStats));
+            }
+            invokeAll(branches);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.sudokuvocabulary.models;
+
+import java.util.SplittableRandom;
+
+/**
+ * <p>An engine which fills an empty board without any search. Row r of the canonical pattern
+ * is the sequence 1..n shifted by subGridColumns * (r % subGridRows) + r / subGridRows, which
+ * puts every number once in each row, column and sub grid for any sub grid geometry. The
+ * pattern is then randomized with a {@link PuzzleTransformModel}. This takes linear time and
+ * scales to 16x16 and larger boards, but only reaches the grids that transforms of the pattern
+ * can make. {@link SolverEngineSelectorModel#generationEngineFor} generates every puzzle
+ * without an explicit engine with it.</p>
+ * <p>Boards which already hold numbers, every solution count and the removal checks are
+ * handed to the search engine given to the constructor.</p>
+ */
+public class PatternFillEngineModel implements SolverEngineModel {
+
+    // Engine solving boards the pattern cannot fill and counting solutions
+    private final SolverEngineModel mSearchEngine;
+
+    /**
+     * <h1>PatternFillEngineModel</h1>
+     * <p>Creates a pattern engine which searches with MOST_CONSTRAINED whenever the pattern
+     * cannot be used.</p>
+     */
+    public PatternFillEngineModel() {
+        this(SudokuSolverModel.Algorithm.MOST_CONSTRAINED);
+    }
+
+    /**
+     * <h1>PatternFillEngineModel</h1>
+     * @param searchEngine The engine used for boards which are not empty and to count
+     *                     solutions, must not be null
+     */
+    public PatternFillEngineModel(SolverEngineModel searchEngine) {
+        if (searchEngine == null) { throw new IllegalArgumentException("No search engine given"); }
+        mSearchEngine = searchEngine;
+    }
+
+    @Override
+    public SolverResultModel solutions(SudokuModel board, SolverBudgetModel budget,
+                                       SolverStatsModel stats) {
+        return mSearchEngine.solutions(board, budget, stats);
+    }
+
+    @Override
+    public PuzzleDiggerModel newDigger(SudokuModel board) {
+        return mSearchEngine.newDigger(board);
+    }
+
+    /**
+     * <p>Fills an empty board from the shifted pattern, which never runs out of budget.
+     * Any other board is solved by the search engine.</p>
+     */
+    @Override
+    public SolverResultModel solve(SudokuModel board, SolverBudgetModel budget,
+                                   SolverStatsModel stats, SplittableRandom random) {
+        if (board.getNumberOfEmptyCells() != board.getGridSize()) {
+            return mSearchEngine.solve(board, budget, stats, random);
+        }
+        long start = System.nanoTime();
+        int gridLength = board.getGridLength();
+        int subGridRows = board.getSubGridRows(), subGridColumns = board.getSubGridColumns();
+        int[][] pattern = new int[gridLength][gridLength];
+        for (int row = 0; row < gridLength; row++) {
+            int shift = subGridColumns * (row % subGridRows) + row / subGridRows;
+            for (int column = 0; column < gridLength; column++) {
+                pattern[row][column] = (shift + column) % gridLength + 1;
+            }
+        }
+        int[] grid = SudokuModel.flatten(PuzzleTransformModel.random(subGridRows, subGridColumns,
+                random).apply(pattern));
+        for (int index = 0; index < grid.length; index++) { board.setValueAt(index, grid[index]); }
+        if (stats != null) { stats.addCall(System.nanoTime() - start); }
+        return new SolverResultModel(1, SolverResultModel.Status.COMPLETE);
+    }
+}
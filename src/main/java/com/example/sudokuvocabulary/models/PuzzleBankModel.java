@@ -0,0 +1,142 @@
+package com.example.sudokuvocabulary.models;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.SplittableRandom;
+
+public class PuzzleBankModel {
+
+    // First four bytes of every puzzle bank, "SDKB"
+    public static final int MAGIC = 0x53444B42;
+    // Version of the bank layout written by the PuzzleBankWriterModel tool in the test sources
+    public static final int VERSION = 1;
+    // Bytes before the first section entry: magic, version and number of sections
+    static final int HEADER_SIZE = 8;
+    // Bytes of every section entry: grid length, sub grid columns, sub grid rows, padding,
+    // number of empty cells, padding, number of puzzles and offset of the first puzzle
+    static final int SECTION_SIZE = 16;
+
+    // Read-only view of the whole bank, only read with absolute gets so it can be shared
+    private final ByteBuffer mBuffer;
+    // Number of sections in the index
+    private final int mSectionCount;
+
+    /**
+     * <h1>PuzzleBankModel</h1>
+     * <p>Wraps a bank written by the PuzzleBankWriterModel build tool. Only the header is read
+     * up front, puzzles are decoded straight from the buffer when asked for.</p>
+     * @param buffer The bytes of the bank, usually memory-mapped
+     * @throws IllegalArgumentException If the buffer does not hold a bank of this version
+     */
+    public PuzzleBankModel(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC
+                || buffer.getShort(4) != VERSION) {
+            throw new IllegalArgumentException("Not a version " + VERSION + " puzzle bank");
+        }
+        mBuffer = buffer;
+        mSectionCount = buffer.getShort(6);
+    }
+
+    /**
+     * <p>Memory-maps part of a file holding a bank.</p>
+     * @param channel The channel of the file
+     * @param position The offset of the bank in the file
+     * @param size The number of bytes of the bank
+     * @return The mapped bank
+     * @throws IOException If the file cannot be mapped
+     */
+    public static PuzzleBankModel map(FileChannel channel, long position, long size)
+            throws IOException {
+        return new PuzzleBankModel(channel.map(FileChannel.MapMode.READ_ONLY, position, size));
+    }
+
+    /**
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param numOfEmptyCells The number of empty cells of the puzzles
+     * @return The number of puzzles of the given type in the bank
+     */
+    public int count(int gridLength, int subGridColumns, int subGridRows, int numOfEmptyCells) {
+        int section = findSection(gridLength, subGridColumns, subGridRows, numOfEmptyCells);
+        return section < 0 ? 0 : mBuffer.getInt(section + 8);
+    }
+
+    /**
+     * <p>Decodes one puzzle of the given type.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param numOfEmptyCells The number of empty cells of the puzzle
+     * @param number The position of the puzzle among the puzzles of its type,
+     *               0 <= number < count of the type
+     * @return A new model holding the puzzle and its solution
+     */
+    public SudokuModel get(int gridLength, int subGridColumns, int subGridRows,
+                           int numOfEmptyCells, int number) {
+        int section = findSection(gridLength, subGridColumns, subGridRows, numOfEmptyCells);
+        if (section < 0 || number < 0 || number >= mBuffer.getInt(section + 8)) {
+            throw new IndexOutOfBoundsException("No puzzle " + number + " of that type");
+        }
+        int gridSize = gridLength*gridLength;
+        int record = mBuffer.getInt(section + 12) + number * recordSize(gridLength);
+        int solutionStart = record + givensSize(gridSize);
+        int[] grid = new int[gridSize], solution = new int[gridSize];
+        for (int index = 0; index < gridSize; index++) {
+            int packed = mBuffer.get(solutionStart + index / 2);
+            solution[index] = ((index % 2 == 0 ? packed >> 4 : packed) & 0xF) + 1;
+            if ((mBuffer.get(record + index / 8) & (1 << (index % 8))) != 0) {
+                grid[index] = solution[index];
+            }
+        }
+        SudokuModel puzzle = new SudokuModel(grid, subGridRows, subGridColumns);
+        puzzle.setSolutionFromArray(solution);
+        return puzzle;
+    }
+
+    /**
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param numOfEmptyCells The number of empty cells of the puzzle
+     * @param random The source of randomness used to pick the puzzle
+     * @return A randomly picked puzzle of the given type, null if the bank has none
+     */
+    public SudokuModel random(int gridLength, int subGridColumns, int subGridRows,
+                              int numOfEmptyCells, SplittableRandom random) {
+        int count = count(gridLength, subGridColumns, subGridRows, numOfEmptyCells);
+        if (count == 0) { return null; }
+        return get(gridLength, subGridColumns, subGridRows, numOfEmptyCells, random.nextInt(count));
+    }
+
+    /**
+     * @param gridLength The side length of the Sudoku grid
+     * @return The number of bytes of one puzzle: one givens bit per cell followed by
+     * the solution with four bits per cell
+     */
+    static int recordSize(int gridLength) {
+        int gridSize = gridLength*gridLength;
+        return givensSize(gridSize) + (gridSize + 1) / 2;
+    }
+
+    static int givensSize(int gridSize) {
+        return (gridSize + 7) / 8;
+    }
+
+    /**
+     * @return The offset of the section entry of the given type, -1 if there is none
+     */
+    private int findSection(int gridLength, int subGridColumns, int subGridRows,
+                            int numOfEmptyCells) {
+        for (int i = 0; i < mSectionCount; i++) {
+            int section = HEADER_SIZE + i * SECTION_SIZE;
+            if (mBuffer.get(section) == gridLength && mBuffer.get(section + 1) == subGridColumns
+                    && mBuffer.get(section + 2) == subGridRows
+                    && mBuffer.getShort(section + 4) == numOfEmptyCells) {
+                return section;
+            }
+        }
+        return -1;
+    }
+}
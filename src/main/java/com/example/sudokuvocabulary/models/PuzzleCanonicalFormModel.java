@@ -0,0 +1,265 @@
+package com.example.sudokuvocabulary.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class PuzzleCanonicalFormModel {
+
+    // Height/Width of the total Sudoku board
+    private final int mGridLength;
+    // Height of each sub grid, the number of rows in a band
+    private final int mSubGridRows;
+    // Width of each sub grid, the number of columns in a stack
+    private final int mSubGridColumns;
+    // Smallest row found so far at the row being searched
+    private final int[] mBestRow;
+    // Row being built by the first row search
+    private final int[] mRow;
+    // Column order being built by the first row search
+    private final int[] mColumns;
+    // Labels given to the numbers by the first row search, zero if not seen yet
+    private final int[] mLabels;
+    // Every transform which gives the smallest rows so far
+    private List<Candidate> mCandidates = new ArrayList<>();
+
+    private PuzzleCanonicalFormModel(int gridLength, int subGridRows, int subGridColumns) {
+        mGridLength = gridLength;
+        mSubGridRows = subGridRows;
+        mSubGridColumns = subGridColumns;
+        mBestRow = new int[gridLength];
+        mRow = new int[gridLength];
+        mColumns = new int[gridLength];
+        mLabels = new int[gridLength + 1];
+    }
+
+    /**
+     * <p>Finds the canonical form of a puzzle: the lexicographically smallest grid, read in
+     * row-major order with empty cells as zero, over every relabelling of the numbers,
+     * every shuffle of the bands and of the rows within each band, every shuffle of the
+     * stacks and of the columns within each stack, and transposing when the sub grids are
+     * square. Two puzzles have the same canonical form exactly when a
+     * {@link PuzzleTransformModel} can turn one into the other.</p>
+     * <p>The numbers of a grid are always relabelled in order of first appearance, which is
+     * the smallest labelling, so only the row and column orders are searched. The first row
+     * is searched column by column, keeping every column order which gives the smallest
+     * row, and each later row only has to pick the smallest of the remaining rows for every
+     * kept column order.</p>
+     * @param puzzle The puzzle to canonicalize, which is not modified
+     * @return The canonical grid in row-major order
+     */
+    public static int[] canonicalForm(SudokuModel puzzle) {
+        int gridLength = puzzle.getGridLength();
+        int subGridRows = puzzle.getSubGridRows(), subGridColumns = puzzle.getSubGridColumns();
+        PuzzleCanonicalFormModel search =
+                new PuzzleCanonicalFormModel(gridLength, subGridRows, subGridColumns);
+        byte[] grid = puzzle.getGridCells();
+        search.searchFirstRows(grid);
+        if (subGridRows == subGridColumns) { search.searchFirstRows(transpose(grid, gridLength)); }
+        return search.searchOtherRows();
+    }
+
+    /**
+     * <p>Hashes the canonical form of a puzzle, so every transform of a puzzle has the same
+     * hash.</p>
+     * @param puzzle The puzzle to hash, which is not modified
+     * @return A 64-bit hash of the canonical form
+     */
+    public static long hash(SudokuModel puzzle) {
+        return hash(canonicalForm(puzzle));
+    }
+
+    /**
+     * @param canonicalForm A grid returned by {@link #canonicalForm(SudokuModel)}
+     * @return A 64-bit hash of the grid, mixing each cell with the SplitMix64 finalizer
+     */
+    public static long hash(int[] canonicalForm) {
+        long hash = canonicalForm.length;
+        for (int value: canonicalForm) {
+            hash = (hash ^ value) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 31;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        return hash ^ (hash >>> 31);
+    }
+
+    /**
+     * <p>Keeps every column order of the given grid which makes one of its rows the
+     * smallest first row seen so far.</p>
+     * @param grid The grid, or its transpose, in row-major order
+     */
+    private void searchFirstRows(byte[] grid) {
+        if (mCandidates.isEmpty()) { Arrays.fill(mBestRow, Integer.MAX_VALUE); }
+        for (int row = 0; row < mGridLength; row++) {
+            Arrays.fill(mLabels, 0);
+            searchColumns(grid, row, 0, 1, false, new boolean[mGridLength]);
+        }
+    }
+
+    /**
+     * <p>Depth first search over the column orders allowed by the stacks, cutting every
+     * branch whose row prefix is already bigger than the best row.</p>
+     * @param position The column position to fill next
+     * @param nextLabel The label the next new number gets
+     * @param smaller True if the row built so far is already smaller than mBestRow
+     * @param used Which columns have been placed
+     */
+    private void searchColumns(byte[] grid, int row, int position, int nextLabel,
+                               boolean smaller, boolean[] used) {
+        if (position == mGridLength) {
+            if (smaller) {
+                System.arraycopy(mRow, 0, mBestRow, 0, mGridLength);
+                mCandidates = new ArrayList<>();
+            }
+            mCandidates.add(new Candidate(grid, row, mColumns.clone(), mLabels.clone(),
+                    nextLabel, mGridLength));
+            return;
+        }
+        int first, last;
+        if (position % mSubGridColumns == 0) {
+            // Any unused stack may come next, starting at any of its columns
+            first = 0;
+            last = mGridLength;
+        } else {
+            // The rest of the current stack
+            first = mColumns[position - 1] / mSubGridColumns * mSubGridColumns;
+            last = first + mSubGridColumns;
+        }
+        for (int column = first; column < last; column++) {
+            if (used[column]) { continue; }
+            int value = grid[row * mGridLength + column] & 0xFF;
+            boolean newLabel = value != 0 && mLabels[value] == 0;
+            int label = value == 0 ? 0 : newLabel ? nextLabel : mLabels[value];
+            // A leaf may have replaced mBestRow with this very prefix, making it equal
+            boolean stillSmaller = smaller && !bestRowStartsWith(position);
+            if (!stillSmaller && label > mBestRow[position]) { continue; }
+            mRow[position] = label;
+            mColumns[position] = column;
+            used[column] = true;
+            if (newLabel) { mLabels[value] = label; }
+            searchColumns(grid, row, position + 1, newLabel ? nextLabel + 1 : nextLabel,
+                    stillSmaller || label < mBestRow[position], used);
+            if (newLabel) { mLabels[value] = 0; }
+            used[column] = false;
+        }
+    }
+
+    /**
+     * <p>Extends every kept candidate one row at a time, keeping only the candidates which
+     * give the smallest row at each step.</p>
+     * @return The canonical grid
+     */
+    private int[] searchOtherRows() {
+        int[] canonical = new int[mGridLength * mGridLength];
+        System.arraycopy(mBestRow, 0, canonical, 0, mGridLength);
+        int[] row = new int[mGridLength];
+        for (int position = 1; position < mGridLength; position++) {
+            Arrays.fill(mBestRow, Integer.MAX_VALUE);
+            List<Candidate> kept = new ArrayList<>();
+            for (Candidate candidate: mCandidates) {
+                int band = candidate.mRows[position - 1] / mSubGridRows;
+                for (int source = 0; source < mGridLength; source++) {
+                    if (candidate.mUsed[source]) { continue; }
+                    // Rows of the current band first, then any row of an unused band
+                    boolean newBand = position % mSubGridRows == 0;
+                    if (!newBand && source / mSubGridRows != band) { continue; }
+                    if (newBand && candidate.bandUsed(source / mSubGridRows, mSubGridRows)) {
+                        continue;
+                    }
+                    int[] labels = candidate.mLabels.clone();
+                    int nextLabel = candidate.mNextLabel;
+                    int compare = 0;
+                    for (int i = 0; i < mGridLength && compare <= 0; i++) {
+                        int value = candidate.mGrid[source * mGridLength + candidate.mColumns[i]]
+                                & 0xFF;
+                        if (value != 0 && labels[value] == 0) { labels[value] = nextLabel++; }
+                        row[i] = value == 0 ? 0 : labels[value];
+                        if (compare == 0) { compare = Integer.compare(row[i], mBestRow[i]); }
+                    }
+                    if (compare > 0) { continue; }
+                    if (compare < 0) {
+                        System.arraycopy(row, 0, mBestRow, 0, mGridLength);
+                        kept.clear();
+                    }
+                    kept.add(candidate.extend(position, source, labels, nextLabel));
+                }
+            }
+            mCandidates = kept;
+            System.arraycopy(mBestRow, 0, canonical, position * mGridLength, mGridLength);
+        }
+        return canonical;
+    }
+
+    /**
+     * @return True if the first positions of mRow and mBestRow are equal
+     */
+    private boolean bestRowStartsWith(int positions) {
+        for (int i = 0; i < positions; i++) {
+            if (mRow[i] != mBestRow[i]) { return false; }
+        }
+        return true;
+    }
+
+    private static byte[] transpose(byte[] grid, int gridLength) {
+        byte[] transposed = new byte[grid.length];
+        for (int row = 0; row < gridLength; row++) {
+            for (int column = 0; column < gridLength; column++) {
+                transposed[column * gridLength + row] = grid[row * gridLength + column];
+            }
+        }
+        return transposed;
+    }
+
+    /**
+     * A column order and the rows picked so far which give the smallest grid prefix.
+     */
+    private static class Candidate {
+        // Grid the rows and columns are taken from, the puzzle or its transpose
+        private final byte[] mGrid;
+        // Column of mGrid placed at each position
+        private final int[] mColumns;
+        // Row of mGrid placed at each position picked so far
+        private final int[] mRows;
+        // Which rows of mGrid have been picked
+        private final boolean[] mUsed;
+        // Label of every number seen so far, zero if not seen yet
+        private final int[] mLabels;
+        // Label the next new number gets
+        private final int mNextLabel;
+
+        Candidate(byte[] grid, int firstRow, int[] columns, int[] labels, int nextLabel,
+                  int gridLength) {
+            mGrid = grid;
+            mColumns = columns;
+            mRows = new int[gridLength];
+            mRows[0] = firstRow;
+            mUsed = new boolean[gridLength];
+            mUsed[firstRow] = true;
+            mLabels = labels;
+            mNextLabel = nextLabel;
+        }
+
+        private Candidate(Candidate other, int position, int row, int[] labels, int nextLabel) {
+            mGrid = other.mGrid;
+            mColumns = other.mColumns;
+            mRows = other.mRows.clone();
+            mRows[position] = row;
+            mUsed = other.mUsed.clone();
+            mUsed[row] = true;
+            mLabels = labels;
+            mNextLabel = nextLabel;
+        }
+
+        Candidate extend(int position, int row, int[] labels, int nextLabel) {
+            return new Candidate(this, position, row, labels, nextLabel);
+        }
+
+        boolean bandUsed(int band, int subGridRows) {
+            for (int row = band * subGridRows; row < (band + 1) * subGridRows; row++) {
+                if (mUsed[row]) { return true; }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.sudokuvocabulary.models;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class PuzzleDiggerModel {
+
+    // Number of unavoidable sets remembered for each cell
+    private static final int MAX_SETS_PER_CELL = 32;
+
+    // Height/Width of the total Sudoku board
+    private final int mGridLength;
+    // Solver holding the current puzzle, kept between removals, null when mEngine checks them
+    private final BitmaskSolverModel mSolver;
+    // Engine checking every removal on mPuzzle, null when mSolver checks them
+    private final SolverEngineModel mEngine;
+    // Current puzzle checked by mEngine, null when mSolver holds the puzzle
+    private final SudokuModel mPuzzle;
+    // Row-major array of the known solution of the puzzle
+    private final byte[] mSolution;
+    // Counters of the work done by the removal checks, may be null
+    private SolverStatsModel mStats;
+    // Why the last removal check returned
+    private SolverResultModel.Status mStatus = SolverResultModel.Status.COMPLETE;
+    // Bit set of the cells which are still clues, bit i of word i / 64 for cell index i
+    private final long[] mClues;
+    // Unavoidable sets containing each cell, as bit sets like mClues
+    private final List<List<long[]>> mSetsOf;
+    // Second solution found by the last failed removal check
+    private final int[] mSecondSolution;
+    // Number of removals rejected by an unavoidable set without searching
+    private int mSkippedChecks;
+
+    /**
+     * <h1>PuzzleDiggerModel</h1>
+     * <p>Starts digging a puzzle out of the given solved board. The board must be completely
+     * filled, its values become the known solution every removal is checked against.</p>
+     * @param board A fully solved Sudoku board, the board itself is never modified
+     */
+    public PuzzleDiggerModel(SudokuModel board) {
+        this(board, new BitmaskSolverModel(board, true, false), null, null);
+    }
+
+    /**
+     * <h1>PuzzleDiggerModel</h1>
+     * <p>Starts digging a puzzle out of the given solved board, checking every removal with
+     * the given engine instead of the incremental bitmask solver. The engine only counts
+     * solutions, so no unavoidable sets are learned and {@link #isNecessary} never knows a
+     * clue is needed.</p>
+     * @param board A fully solved Sudoku board, the board itself is never modified
+     * @param engine The engine counting the solutions of every removal, must not be null
+     */
+    public PuzzleDiggerModel(SudokuModel board, SolverEngineModel engine) {
+        this(board, null, engine, copyOf(board));
+        if (engine == null) { throw new IllegalArgumentException("No solver engine given"); }
+    }
+
+    private PuzzleDiggerModel(SudokuModel board, BitmaskSolverModel solver,
+                              SolverEngineModel engine, SudokuModel puzzle) {
+        mGridLength = board.getGridLength();
+        mSolver = solver;
+        mEngine = engine;
+        mPuzzle = puzzle;
+        mSolution = board.getGridCells().clone();
+        mClues = new long[(mSolution.length + 63) / 64];
+        for (int index = 0; index < mSolution.length; index++) { setClue(index, true); }
+        mSetsOf = new ArrayList<>(mSolution.length);
+        for (int index = 0; index < mSolution.length; index++) { mSetsOf.add(new ArrayList<>()); }
+        mSecondSolution = new int[mSolution.length];
+    }
+
+    /**
+     * <h1>PuzzleDiggerModel</h1>
+     * <p>Copy constructor used to check removals of the same puzzle on another thread. The
+     * copy starts without stats and with the unavoidable sets known so far.</p>
+     * @param other The digger to copy, must not be checking a removal while it is copied
+     */
+    public PuzzleDiggerModel(PuzzleDiggerModel other) {
+        mGridLength = other.mGridLength;
+        mSolver = other.mSolver == null ? null : new BitmaskSolverModel(other.mSolver);
+        mEngine = other.mEngine;
+        mPuzzle = other.mPuzzle == null ? null : copyOf(other.mPuzzle);
+        mSolution = other.mSolution;
+        mClues = other.mClues.clone();
+        mSetsOf = new ArrayList<>(mSolution.length);
+        for (List<long[]> sets: other.mSetsOf) { mSetsOf.add(new ArrayList<>(sets)); }
+        mSecondSolution = new int[mSolution.length];
+    }
+
+    /**
+     * <p>Makes the removal checks record what they do in the given stats object.</p>
+     * @param stats The stats to add to, null to turn recording off
+     */
+    public void setStats(SolverStatsModel stats) {
+        mStats = stats;
+        if (mSolver != null) { mSolver.setStats(stats); }
+    }
+
+    /**
+     * @return COMPLETE if the last removal check finished, otherwise the reason its budget
+     * stopped it
+     */
+    public SolverResultModel.Status getStatus() { return mStatus; }
+
+    /**
+     * @return The number of removals rejected by {@link #isNecessary} without searching
+     */
+    public int getSkippedChecks() { return mSkippedChecks; }
+
+    /**
+     * <p>Tells without searching whether a clue is known to be needed. Every failed removal
+     * check finds a second solution, and the cells where it differs from the known solution
+     * form an unavoidable set: a puzzle with no clue in it has both solutions. A clue which
+     * is the last clue of such a set can never be removed, however many other cells are
+     * emptied, so it is never checked again.</p>
+     * @param row The row number of the cell, counting from the top starting at zero
+     * @param column The column number of the cell, counting from the left starting at zero
+     * @return True if the cell is a clue that must stay, false if it is not known to be
+     */
+    public boolean isNecessary(int row, int column) {
+        int index = row * mGridLength + column;
+        if (!isClue(index)) { return false; }
+        for (long[] set: mSetsOf.get(index)) {
+            boolean otherClue = false;
+            for (int word = 0; word < mClues.length && !otherClue; word++) {
+                long others = set[word] & mClues[word];
+                if (word == index / 64) { others &= ~(1L << (index % 64)); }
+                otherClue = others != 0;
+            }
+            if (!otherClue) { return true; }
+        }
+        return false;
+    }
+
+    /**
+     * <p>Empties the given cell if the puzzle stays uniquely solvable. Since the puzzle was
+     * unique before the removal, any second solution must put a different number in the
+     * removed cell, so only the other candidates of that cell are searched instead of
+     * counting every solution of the board. Clues {@link #isNecessary} already knows about
+     * are rejected without searching. A digger made with an engine asks the engine to count
+     * the solutions of the board with each other candidate in the cell instead.</p>
+     * @param row The row number of the cell to empty, counting from the top starting at zero
+     * @param column The column number of the cell to empty, counting from the left starting
+     *               at zero
+     * @param budget The node, time and cancellation limits of the check, null for none
+     * @return True if the cell was emptied, false if it is needed for a unique solution or
+     * the budget ran out before the check could tell, in which case the cell stays filled
+     */
+    public boolean tryRemove(int row, int column, SolverBudgetModel budget) {
+        long start = System.nanoTime();
+        int index = row * mGridLength + column, value = mSolution[index] & 0xFF;
+        mStatus = SolverResultModel.Status.COMPLETE;
+        if (isNecessary(row, column)) {
+            mSkippedChecks++;
+            return false;
+        }
+        if (mEngine != null) {
+            boolean removed = engineUnique(row, column, value, budget)
+                    && mStatus == SolverResultModel.Status.COMPLETE;
+            if (removed) {
+                setClue(index, false);
+            } else {
+                mPuzzle.setValueAt(index, value);
+            }
+            return removed;
+        }
+        mSolver.setBudget(budget);
+        mSolver.releaseValueAt(index);
+
+        boolean unique = true;
+        int others = mSolver.candidatesAt(index) & ~(1 << (value - 1));
+        while (others != 0 && unique && mStatus == SolverResultModel.Status.COMPLETE) {
+            int mask = others & -others;
+            others ^= mask;
+            mSolver.fixValueAt(index, Integer.numberOfTrailingZeros(mask) + 1);
+            unique = mSolver.countSolutions(1, mSecondSolution) == 0;
+            mStatus = mSolver.getStatus();
+            mSolver.releaseValueAt(index);
+        }
+        if (!unique) { addUnavoidableSet(); }
+        boolean removed = unique && mStatus == SolverResultModel.Status.COMPLETE;
+        if (removed) {
+            setClue(index, false);
+        } else {
+            mSolver.fixValueAt(index, value);
+        }
+        if (mStats != null) { mStats.addCall(System.nanoTime() - start); }
+        return removed;
+    }
+
+    /**
+     * <p>Empties the given cell of mPuzzle and counts the solutions with each other valid
+     * number in it with mEngine, which records its own calls in mStats. The cell is left
+     * empty.</p>
+     * @param row The row number of the cell, counting from the top starting at zero
+     * @param column The column number of the cell, counting from the left starting at zero
+     * @param value The solution value of the cell
+     * @param budget The node, time and cancellation limits of each count, null for none
+     * @return True if no other number solves the puzzle, false if one does or the budget
+     * stopped a count first
+     */
+    private boolean engineUnique(int row, int column, int value, SolverBudgetModel budget) {
+        mPuzzle.setValueAt(row, column, 0);
+        boolean unique = true;
+        for (int other = 1; other <= mGridLength && unique
+                && mStatus == SolverResultModel.Status.COMPLETE; other++) {
+            if (other == value || !mPuzzle.gridValid(row, column, other)) { continue; }
+            mPuzzle.setValueAt(row, column, other);
+            SolverResultModel result = mEngine.solutions(mPuzzle, budget, mStats);
+            unique = result.getSolutions() == 0;
+            mStatus = result.getStatus();
+            mPuzzle.setValueAt(row, column, 0);
+        }
+        return unique;
+    }
+
+    /**
+     * <p>Empties a cell without checking, used to replay a removal already checked on
+     * another copy of the same puzzle.</p>
+     * @param row The row number of the cell to empty, counting from the top starting at zero
+     * @param column The column number of the cell to empty, counting from the left starting
+     *               at zero
+     */
+    public void remove(int row, int column) {
+        if (mSolver != null) {
+            mSolver.releaseValueAt(row * mGridLength + column);
+        } else {
+            mPuzzle.setValueAt(row, column, 0);
+        }
+        setClue(row * mGridLength + column, false);
+    }
+
+    /**
+     * <p>Puts the solution value back into a cell emptied by {@link #tryRemove}, used when a
+     * removal is valid but unwanted for another reason such as making the puzzle too hard.</p>
+     * @param row The row number of the cell to fill, counting from the top starting at zero
+     * @param column The column number of the cell to fill, counting from the left starting
+     *               at zero
+     */
+    public void restore(int row, int column) {
+        int index = row * mGridLength + column;
+        if (mSolver != null) {
+            mSolver.fixValueAt(index, mSolution[index] & 0xFF);
+        } else {
+            mPuzzle.setValueAt(index, mSolution[index] & 0xFF);
+        }
+        setClue(index, true);
+    }
+
+    /**
+     * @param board The board to copy
+     * @return A board holding the same numbers and sub grid geometry as the given board
+     */
+    private static SudokuModel copyOf(SudokuModel board) {
+        return new SudokuModel(board.getGridCells().clone(), board.getSolutionCells().clone(),
+                board.getSubGridRows(), board.getSubGridColumns());
+    }
+
+    /**
+     * <p>Remembers the cells where the second solution found differs from the known
+     * solution as an unavoidable set.</p>
+     */
+    private void addUnavoidableSet() {
+        long[] set = new long[mClues.length];
+        for (int index = 0; index < mSolution.length; index++) {
+            if (mSecondSolution[index] != (mSolution[index] & 0xFF)) {
+                set[index / 64] |= 1L << (index % 64);
+            }
+        }
+        for (int index = 0; index < mSolution.length; index++) {
+            List<long[]> sets = mSetsOf.get(index);
+            if ((set[index / 64] & (1L << (index % 64))) != 0 && sets.size() < MAX_SETS_PER_CELL) {
+                sets.add(set);
+            }
+        }
+    }
+
+    private boolean isClue(int index) {
+        return (mClues[index / 64] & (1L << (index % 64))) != 0;
+    }
+
+    private void setClue(int index, boolean clue) {
+        if (clue) {
+            mClues[index / 64] |= 1L << (index % 64);
+        } else {
+            mClues[index / 64] &= ~(1L << (index % 64));
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.example.sudokuvocabulary.models;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+public class PuzzlePoolModel {
+
+    // Repeats thrown away in a row before one is kept, small boards run out of new puzzles
+    private static final int MAX_REPEATS = 8;
+    // Time the refill thread waits after a failed generation before trying again
+    private static final long FAILURE_DELAY_MILLIS = 1_000;
+
+    // Number of ready puzzles kept for every registered puzzle type
+    private final int mCapacity;
+    // Ready puzzles of every registered puzzle type, in registration order
+    private final Map<PuzzleType, ArrayDeque<SudokuModel>> mPuzzles = new LinkedHashMap<>();
+    // Called on the refill thread every time puzzles have been taken out of the pool or the
+    // pool has been topped up, may be null
+    private Runnable mOnChanged;
+    // Told on the refill thread about every generation which threw, may be null
+    private OnGenerationFailedListener mOnGenerationFailed;
+    // True if a puzzle has been taken out since mOnChanged last ran
+    private boolean mTaken;
+    // Background thread generating puzzles, null while stopped
+    private Thread mRefillThread;
+    // Token that interrupts the puzzle being generated when the pool is stopped
+    private CancellationTokenModel mCancellation;
+    // Every puzzle the pool has generated or restored, repeats are thrown away
+    private PuzzleSeenSetModel mSeenSet = new PuzzleSeenSetModel();
+
+    /**
+     * <h1>PuzzlePoolModel</h1>
+     * <p>Creates an empty pool. Nothing is generated until a puzzle type is registered
+     * and {@link #start()} is called.</p>
+     * @param capacity The number of ready puzzles to keep for every registered puzzle type
+     */
+    public PuzzlePoolModel(int capacity) {
+        mCapacity = capacity;
+    }
+
+    /**
+     * <p>Makes the pool keep puzzles of the given type ready.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param numOfEmptyCells The number of empty cells the puzzles should start with
+     */
+    public void register(int gridLength, int subGridColumns, int subGridRows,
+                         int numOfEmptyCells) {
+        register(new PuzzleType(gridLength, subGridColumns, subGridRows, numOfEmptyCells, null));
+    }
+
+    /**
+     * <p>Makes the pool keep puzzles of the given difficulty band ready, generated with as
+     * many empty cells as the band allows.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param band The difficulty band of the puzzles
+     */
+    public void register(int gridLength, int subGridColumns, int subGridRows,
+                         DifficultyRatingModel.Band band) {
+        register(new PuzzleType(gridLength, subGridColumns, subGridRows, 0, band));
+    }
+
+    /**
+     * <p>Sets the callback used to persist the pool. It runs on the refill thread as soon as
+     * ready puzzles have been taken out, before their replacements are generated, so a saved
+     * pool never hands out a taken puzzle again. It also runs whenever every registered
+     * puzzle type is back to full capacity. Takes are only persisted while the refill thread
+     * is running.</p>
+     * @param onChanged The callback, null for none
+     */
+    public synchronized void setOnChanged(Runnable onChanged) {
+        mOnChanged = onChanged;
+    }
+
+    /**
+     * <p>Sets the listener told about every puzzle generation which threw on the refill
+     * thread. The thread keeps running and tries again after a short delay.</p>
+     * @param onGenerationFailed The listener, null for none
+     */
+    public synchronized void setOnGenerationFailed(OnGenerationFailedListener onGenerationFailed) {
+        mOnGenerationFailed = onGenerationFailed;
+    }
+
+    /**
+     * <p>Replaces the set of puzzles the pool has seen, so the pool also avoids puzzles
+     * handed out from somewhere else, such as a puzzle bank.</p>
+     * @param seenSet The set to record generated puzzles in and check them against
+     */
+    public synchronized void setSeenSet(PuzzleSeenSetModel seenSet) {
+        mSeenSet = seenSet;
+    }
+
+    /**
+     * <p>Takes a ready puzzle of the given type out of the pool. If none is ready the
+     * puzzle is generated on the calling thread instead. Either way the refill thread
+     * is woken up to replace it.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param numOfEmptyCells The number of empty cells the puzzle should start with
+     * @return A new puzzle which no other caller will receive
+     */
+    public SudokuModel take(int gridLength, int subGridColumns, int subGridRows,
+                            int numOfEmptyCells) {
+        return take(new PuzzleType(gridLength, subGridColumns, subGridRows, numOfEmptyCells, null));
+    }
+
+    /**
+     * <p>Takes a ready puzzle of the given difficulty band out of the pool, generating it on
+     * the calling thread if none is ready.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param band The difficulty band of the puzzle
+     * @return A new puzzle which no other caller will receive
+     */
+    public SudokuModel take(int gridLength, int subGridColumns, int subGridRows,
+                            DifficultyRatingModel.Band band) {
+        return take(new PuzzleType(gridLength, subGridColumns, subGridRows, 0, band));
+    }
+
+    /**
+     * <p>Takes a ready puzzle of the given type out of the pool without ever generating one,
+     * waking the refill thread to replace it.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param numOfEmptyCells The number of empty cells the puzzle should start with
+     * @return A new puzzle which no other caller will receive, null if none is ready
+     */
+    public SudokuModel poll(int gridLength, int subGridColumns, int subGridRows,
+                            int numOfEmptyCells) {
+        return poll(new PuzzleType(gridLength, subGridColumns, subGridRows, numOfEmptyCells, null));
+    }
+
+    /**
+     * <p>Takes a ready puzzle of the given difficulty band out of the pool without ever
+     * generating one, waking the refill thread to replace it.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param band The difficulty band of the puzzle
+     * @return A new puzzle which no other caller will receive, null if none is ready
+     */
+    public SudokuModel poll(int gridLength, int subGridColumns, int subGridRows,
+                            DifficultyRatingModel.Band band) {
+        return poll(new PuzzleType(gridLength, subGridColumns, subGridRows, 0, band));
+    }
+
+    /**
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param numOfEmptyCells The number of empty cells of the puzzles
+     * @return The number of ready puzzles of the given type
+     */
+    public int available(int gridLength, int subGridColumns, int subGridRows,
+                         int numOfEmptyCells) {
+        return available(new PuzzleType(gridLength, subGridColumns, subGridRows, numOfEmptyCells,
+                null));
+    }
+
+    /**
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param band The difficulty band of the puzzles
+     * @return The number of ready puzzles of the given difficulty band
+     */
+    public int available(int gridLength, int subGridColumns, int subGridRows,
+                         DifficultyRatingModel.Band band) {
+        return available(new PuzzleType(gridLength, subGridColumns, subGridRows, 0, band));
+    }
+
+    /**
+     * <p>Starts the low priority background thread which keeps every registered puzzle type
+     * at full capacity. Does nothing if it is already running.</p>
+     */
+    public synchronized void start() {
+        if (mRefillThread != null) { return; }
+        CancellationTokenModel cancellation = new CancellationTokenModel();
+        mCancellation = cancellation;
+        mRefillThread = new Thread(() -> refill(cancellation), "PuzzlePoolRefill");
+        mRefillThread.setPriority(Thread.MIN_PRIORITY);
+        mRefillThread.setDaemon(true);
+        mRefillThread.start();
+    }
+
+    /**
+     * <p>Stops the refill thread, abandoning the puzzle it is generating. Ready puzzles
+     * stay in the pool.</p>
+     */
+    public synchronized void stop() {
+        if (mRefillThread == null) { return; }
+        mCancellation.cancel();
+        mRefillThread = null;
+        notifyAll();
+    }
+
+    /**
+     * <p>Writes every ready puzzle to the given stream.</p>
+     * @param outputStream The stream to write to
+     * @throws IOException If writing to the stream fails
+     */
+    public void writeTo(ObjectOutputStream outputStream) throws IOException {
+        HashMap<PuzzleType, ArrayList<SudokuModel>> puzzles = new HashMap<>();
+        synchronized (this) {
+            for (Map.Entry<PuzzleType, ArrayDeque<SudokuModel>> entry: mPuzzles.entrySet()) {
+                puzzles.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
+        }
+        outputStream.writeObject(puzzles);
+    }
+
+    /**
+     * <p>Adds the puzzles written by {@link #writeTo(ObjectOutputStream)} to the pool,
+     * registering their puzzle types and recording them as seen. Puzzles beyond the capacity
+     * are dropped.</p>
+     * @param inputStream The stream to read from
+     * @throws IOException If reading from the stream fails
+     * @throws ClassNotFoundException If the stream does not hold a saved pool
+     */
+    @SuppressWarnings("unchecked")
+    public void readFrom(ObjectInputStream inputStream) throws IOException, ClassNotFoundException {
+        Map<PuzzleType, List<SudokuModel>> puzzles =
+                (Map<PuzzleType, List<SudokuModel>>) inputStream.readObject();
+        PuzzleSeenSetModel seenSet = getSeenSet();
+        for (List<SudokuModel> restored: puzzles.values()) {
+            for (SudokuModel puzzle: restored) { seenSet.add(puzzle); }
+        }
+        synchronized (this) {
+            for (Map.Entry<PuzzleType, List<SudokuModel>> entry: puzzles.entrySet()) {
+                ArrayDeque<SudokuModel> ready = mPuzzles.get(entry.getKey());
+                if (ready == null) {
+                    ready = new ArrayDeque<>();
+                    mPuzzles.put(entry.getKey(), ready);
+                }
+                for (SudokuModel puzzle: entry.getValue()) {
+                    if (ready.size() < mCapacity) { ready.add(puzzle); }
+                }
+            }
+            notifyAll();
+        }
+    }
+
+    private synchronized void register(PuzzleType type) {
+        if (!mPuzzles.containsKey(type)) {
+            mPuzzles.put(type, new ArrayDeque<>());
+            notifyAll();
+        }
+    }
+
+    private SudokuModel take(PuzzleType type) {
+        SudokuModel puzzle = poll(type);
+        if (puzzle != null) { return puzzle; }
+        puzzle = type.generate(null);
+        getSeenSet().add(puzzle);
+        return puzzle;
+    }
+
+    private synchronized PuzzleSeenSetModel getSeenSet() { return mSeenSet; }
+
+    private synchronized SudokuModel poll(PuzzleType type) {
+        ArrayDeque<SudokuModel> puzzles = mPuzzles.get(type);
+        SudokuModel puzzle = puzzles == null ? null : puzzles.poll();
+        if (puzzle != null) { mTaken = true; }
+        notifyAll();
+        return puzzle;
+    }
+
+    private synchronized int available(PuzzleType type) {
+        ArrayDeque<SudokuModel> puzzles = mPuzzles.get(type);
+        return puzzles == null ? 0 : puzzles.size();
+    }
+
+    /**
+     * <p>Body of the refill thread, generates one puzzle at a time for the first puzzle type
+     * below capacity and sleeps while every type is full. Puzzles already seen are thrown
+     * away unless MAX_REPEATS of them came in a row. Taken puzzles are persisted before
+     * anything else is generated.</p>
+     * @param cancellation The token which tells this thread to stop
+     */
+    private void refill(CancellationTokenModel cancellation) {
+        boolean changed = false;
+        int repeats = 0;
+        while (!cancellation.isCancelled()) {
+            PuzzleType type = null;
+            Runnable onChanged = null;
+            synchronized (this) {
+                if (mTaken) {
+                    // Generating a replacement can take long, save the pool without it first
+                    mTaken = false;
+                    onChanged = mOnChanged;
+                } else {
+                    type = nextMissingType();
+                    if (type == null && !changed) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        continue;
+                    }
+                    if (type == null) {
+                        onChanged = mOnChanged;
+                        changed = false;
+                    }
+                }
+            }
+            if (type == null) {
+                if (onChanged != null) { onChanged.run(); }
+                continue;
+            }
+
+            SudokuModel puzzle;
+            try {
+                puzzle = type.generate(cancellation);
+            } catch (RuntimeException e) {
+                OnGenerationFailedListener onGenerationFailed;
+                synchronized (this) { onGenerationFailed = mOnGenerationFailed; }
+                if (onGenerationFailed != null) { onGenerationFailed.onGenerationFailed(e); }
+                synchronized (this) {
+                    try {
+                        wait(FAILURE_DELAY_MILLIS);
+                    } catch (InterruptedException interrupted) {
+                        return;
+                    }
+                }
+                continue;
+            }
+            if (cancellation.isCancelled()) { return; }
+            if (!getSeenSet().add(puzzle) && repeats++ < MAX_REPEATS) { continue; }
+            repeats = 0;
+            synchronized (this) {
+                ArrayDeque<SudokuModel> ready = mPuzzles.get(type);
+                if (ready.size() < mCapacity) {
+                    ready.add(puzzle);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The first registered puzzle type with fewer ready puzzles than the
+     * capacity, null if every type is full
+     */
+    private PuzzleType nextMissingType() {
+        for (Map.Entry<PuzzleType, ArrayDeque<SudokuModel>> entry: mPuzzles.entrySet()) {
+            if (entry.getValue().size() < mCapacity) { return entry.getKey(); }
+        }
+        return null;
+    }
+
+    /**
+     * Listener told when the refill thread could not generate a puzzle.
+     */
+    public interface OnGenerationFailedListener {
+        /**
+         * @param e What the generation threw
+         */
+        void onGenerationFailed(RuntimeException e);
+    }
+
+    /**
+     * The board geometry and either the number of empty cells or the difficulty band
+     * identifying a kind of puzzle in the pool.
+     */
+    private static class PuzzleType implements Serializable {
+        private static final long serialVersionUID = 2;
+
+        private final int mGridLength, mSubGridColumns, mSubGridRows, mNumOfEmptyCells;
+        // Difficulty band of the puzzles, null if they are generated by number of empty cells
+        private final DifficultyRatingModel.Band mBand;
+
+        PuzzleType(int gridLength, int subGridColumns, int subGridRows, int numOfEmptyCells,
+                   DifficultyRatingModel.Band band) {
+            mGridLength = gridLength;
+            mSubGridColumns = subGridColumns;
+            mSubGridRows = subGridRows;
+            mNumOfEmptyCells = numOfEmptyCells;
+            mBand = band;
+        }
+
+        SudokuModel generate(CancellationTokenModel cancellation) {
+            SolverEngineModel engine =
+                    SolverEngineSelectorModel.getDefault().generationEngineFor(mGridLength);
+            if (mBand != null) {
+                return new SudokuModel(mGridLength, mSubGridColumns, mSubGridRows, mBand, engine,
+                        new SplittableRandom(), cancellation);
+            }
+            return new SudokuModel(mGridLength, mSubGridColumns, mSubGridRows, mNumOfEmptyCells,
+                    engine, cancellation);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof PuzzleType)) { return false; }
+            PuzzleType type = (PuzzleType) other;
+            return mGridLength == type.mGridLength && mSubGridColumns == type.mSubGridColumns
+                    && mSubGridRows == type.mSubGridRows && mNumOfEmptyCells == type.mNumOfEmptyCells
+                    && mBand == type.mBand;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = ((mGridLength * 31 + mSubGridColumns) * 31 + mSubGridRows) * 31
+                    + mNumOfEmptyCells;
+            return hash * 31 + (mBand == null ? 0 : mBand.ordinal() + 1);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.sudokuvocabulary.models;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class PuzzleSeenSetModel {
+
+    // Canonical form hash of every puzzle seen so far
+    private final Set<Long> mHashes = new HashSet<>();
+
+    /**
+     * <p>Records a puzzle. Puzzles are compared by the hash of their canonical form, so a
+     * relabelled, shuffled or transposed copy of a seen puzzle counts as seen. Different
+     * puzzles share a 64-bit hash so rarely that it is ignored.</p>
+     * @param puzzle The puzzle to record, which is not modified
+     * @return True if the puzzle had not been seen before
+     */
+    public boolean add(SudokuModel puzzle) {
+        long hash = PuzzleCanonicalFormModel.hash(puzzle);
+        synchronized (this) {
+            return mHashes.add(hash);
+        }
+    }
+
+    /**
+     * @param puzzle The puzzle to look up, which is not modified
+     * @return True if the puzzle or a transform of it has been recorded
+     */
+    public boolean contains(SudokuModel puzzle) {
+        long hash = PuzzleCanonicalFormModel.hash(puzzle);
+        synchronized (this) {
+            return mHashes.contains(hash);
+        }
+    }
+
+    /**
+     * @return The number of distinct puzzles recorded
+     */
+    public synchronized int size() { return mHashes.size(); }
+}
@@ -0,0 +1,148 @@
+package com.example.sudokuvocabulary.models;
+
+import java.util.SplittableRandom;
+
+public class PuzzleTransformModel {
+
+    // Height of each sub grid of the boards this transform applies to
+    private final int mSubGridRows;
+    // Width of each sub grid of the boards this transform applies to
+    private final int mSubGridColumns;
+    // Row of the original board that ends up at each row
+    private final int[] mRowOrder;
+    // Column of the original board that ends up at each column
+    private final int[] mColumnOrder;
+    // Number that replaces each number, index 0 keeps empty cells empty
+    private final int[] mLabels;
+    // True to swap rows and columns, only allowed for square sub grids
+    private final boolean mTranspose;
+
+    private PuzzleTransformModel(int subGridRows, int subGridColumns, int[] rowOrder,
+                                 int[] columnOrder, int[] labels, boolean transpose) {
+        mSubGridRows = subGridRows;
+        mSubGridColumns = subGridColumns;
+        mRowOrder = rowOrder;
+        mColumnOrder = columnOrder;
+        mLabels = labels;
+        mTranspose = transpose;
+    }
+
+    /**
+     * <p>Picks a random transform which keeps every row, column and sub grid of a board a
+     * row, column or sub grid: rows are shuffled within their band of sub grids and the
+     * bands are shuffled, the same is done for columns, the numbers are relabelled, and
+     * boards with square sub grids are transposed half of the time. The sub grid geometry
+     * is always preserved, so a valid puzzle stays valid and a unique solution stays
+     * unique.</p>
+     * @param subGridRows The height of each sub grid
+     * @param subGridColumns The width of each sub grid
+     * @param random The source of randomness used to pick the transform
+     * @return A transform for boards with the given sub grids
+     */
+    public static PuzzleTransformModel random(int subGridRows, int subGridColumns,
+                                              SplittableRandom random) {
+        int gridLength = subGridRows*subGridColumns;
+        int[] labels = new int[gridLength + 1];
+        int[] numbers = shuffledSequence(gridLength, random);
+        for (int number = 1; number <= gridLength; number++) {
+            labels[number] = numbers[number - 1] + 1;
+        }
+        return new PuzzleTransformModel(subGridRows, subGridColumns,
+                shuffledLines(subGridRows, subGridColumns, random),
+                shuffledLines(subGridColumns, subGridRows, random),
+                labels, subGridRows == subGridColumns && random.nextBoolean());
+    }
+
+    /**
+     * <p>Derives a new puzzle from a base puzzle with a random transform, in O(n^2).</p>
+     * @param base The puzzle to transform, which is not modified
+     * @param random The source of randomness used to pick the transform
+     * @return A new puzzle with the same geometry and number of empty cells
+     */
+    public static SudokuModel transform(SudokuModel base, SplittableRandom random) {
+        return random(base.getSubGridRows(), base.getSubGridColumns(), random).apply(base);
+    }
+
+    /**
+     * <p>Applies this transform to the puzzle and solution of the given board.</p>
+     * @param base The puzzle to transform, which is not modified
+     * @return A new puzzle with the same geometry and number of empty cells
+     * @throws IllegalArgumentException If the board has different sub grids than the transform
+     */
+    public SudokuModel apply(SudokuModel base) {
+        if (base.getSubGridRows() != mSubGridRows || base.getSubGridColumns() != mSubGridColumns) {
+            throw new IllegalArgumentException("Transform is for " + mSubGridRows + "x"
+                    + mSubGridColumns + " sub grids");
+        }
+        return new SudokuModel(apply(base.getGridCells()), apply(base.getSolutionCells()),
+                mSubGridRows, mSubGridColumns);
+    }
+
+    /**
+     * <p>Applies this transform to cells packed one number per byte in row-major order.</p>
+     * @param cells The cells to transform, which are not modified
+     * @return New transformed cells
+     */
+    private byte[] apply(byte[] cells) {
+        int gridLength = (int) Math.sqrt(cells.length);
+        byte[] transformed = new byte[cells.length];
+        for (int row = 0; row < gridLength; row++) {
+            for (int column = 0; column < gridLength; column++) {
+                int fromRow = mRowOrder[mTranspose ? column : row];
+                int fromColumn = mColumnOrder[mTranspose ? row : column];
+                transformed[row * gridLength + column] =
+                        (byte) mLabels[cells[fromRow * gridLength + fromColumn] & 0xFF];
+            }
+        }
+        return transformed;
+    }
+
+    /**
+     * <p>Applies this transform to a grid with the sub grids of this transform.</p>
+     * @param matrix The grid to transform, zero for empty cells, which is not modified
+     * @return A new transformed grid
+     */
+    public int[][] apply(int[][] matrix) {
+        int gridLength = matrix.length;
+        int[][] transformed = new int[gridLength][gridLength];
+        for (int row = 0; row < gridLength; row++) {
+            for (int column = 0; column < gridLength; column++) {
+                int fromRow = mRowOrder[mTranspose ? column : row];
+                int fromColumn = mColumnOrder[mTranspose ? row : column];
+                transformed[row][column] = mLabels[matrix[fromRow][fromColumn]];
+            }
+        }
+        return transformed;
+    }
+
+    /**
+     * @param lineCount The number of lines in each band, i.e. the sub grid height for rows
+     * @param bandCount The number of bands, i.e. the sub grid width for rows
+     * @return The original line of every line after shuffling the lines within each band
+     * and shuffling the bands
+     */
+    private static int[] shuffledLines(int lineCount, int bandCount, SplittableRandom random) {
+        int[] bands = shuffledSequence(bandCount, random);
+        int[] lines = new int[lineCount*bandCount];
+        for (int band = 0; band < bandCount; band++) {
+            int[] withinBand = shuffledSequence(lineCount, random);
+            for (int line = 0; line < lineCount; line++) {
+                lines[band*lineCount + line] = bands[band]*lineCount + withinBand[line];
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * @return A random permutation of the numbers 0 to length - 1
+     */
+    private static int[] shuffledSequence(int length, SplittableRandom random) {
+        int[] sequence = new int[length];
+        for (int i = 0; i < length; i++) {
+            int swap = random.nextInt(i + 1);
+            sequence[i] = sequence[swap];
+            sequence[swap] = i;
+        }
+        return sequence;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.sudokuvocabulary.models;
+
+public class SolverBudgetModel {
+
+    // Number of nodes between two checks of the clock
+    private static final int CLOCK_CHECK_INTERVAL = 256;
+
+    // Maximum number of search nodes a solver may expand
+    private final long mMaxNodes;
+    // System.nanoTime() after which the solver must stop
+    private final long mDeadlineNanos;
+    // Token that stops the solver when cancelled, may be null
+    private final CancellationTokenModel mCancellation;
+
+    /**
+     * <h1>SolverBudgetModel</h1>
+     * <p>Limits how much work a single solver call may do.</p>
+     * @param maxNodes The maximum number of search nodes to expand
+     * @param deadlineNanos The System.nanoTime() value after which the search stops
+     * @param cancellation A token which stops the search when cancelled, may be null
+     */
+    public SolverBudgetModel(long maxNodes, long deadlineNanos, CancellationTokenModel cancellation) {
+        mMaxNodes = maxNodes;
+        mDeadlineNanos = deadlineNanos;
+        mCancellation = cancellation;
+    }
+
+    /**
+     * @param maxNodes The maximum number of search nodes to expand
+     * @param timeoutMillis The number of milliseconds from now after which the search stops
+     * @param cancellation A token which stops the search when cancelled, may be null
+     * @return A budget with a deadline relative to the current time
+     */
+    public static SolverBudgetModel withTimeout(long maxNodes, long timeoutMillis,
+                                                CancellationTokenModel cancellation) {
+        return new SolverBudgetModel(maxNodes, System.nanoTime() + timeoutMillis * 1_000_000L,
+                cancellation);
+    }
+
+    /**
+     * @param maxNodes The maximum number of search nodes to expand
+     * @return A budget which only limits the number of nodes
+     */
+    public static SolverBudgetModel withNodeLimit(long maxNodes) {
+        return new SolverBudgetModel(maxNodes, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * <p>Called by solvers every time they expand a node.</p>
+     * @param nodes The number of nodes the solver has expanded so far
+     * @return COMPLETE while the search may continue, otherwise the reason it must stop
+     */
+    public SolverResultModel.Status check(long nodes) {
+        if (nodes > mMaxNodes) {
+            return SolverResultModel.Status.NODE_LIMIT_REACHED;
+        }
+        if (nodes % CLOCK_CHECK_INTERVAL == 1) {
+            if (mCancellation != null && mCancellation.isCancelled()) {
+                return SolverResultModel.Status.CANCELLED;
+            }
+            if (mDeadlineNanos != Long.MAX_VALUE && System.nanoTime() - mDeadlineNanos > 0) {
+                return SolverResultModel.Status.DEADLINE_PASSED;
+            }
+        }
+        return SolverResultModel.Status.COMPLETE;
+    }
+}
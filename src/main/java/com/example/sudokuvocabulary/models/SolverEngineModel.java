@@ -0,0 +1,47 @@
+package com.example.sudokuvocabulary.models;
+
+import java.util.SplittableRandom;
+
+/**
+ * <p>A Sudoku solver which can fill a board and count its solutions. Puzzle generation only
+ * depends on this interface, so engines can be swapped or compared per board size through
+ * {@link SolverEngineSelectorModel}. Every {@link SudokuSolverModel.Algorithm} is an engine.</p>
+ */
+public interface SolverEngineModel {
+
+    /**
+     * <p>Counts the solutions of the given board, stopping after two or when the budget runs
+     * out. The board is not modified.</p>
+     * @param board The Sudoku board to check
+     * @param budget The node, time and cancellation limits of the search, null for none
+     * @param stats The stats to add the work of this call to, null to not record anything
+     * @return The number of solutions found and whether the budget stopped the search, in
+     * which case the count is only a lower bound
+     */
+    SolverResultModel solutions(SudokuModel board, SolverBudgetModel budget, SolverStatsModel stats);
+
+    /**
+     * <p>Fills every empty cell of the given board with a solution chosen by the given source
+     * of randomness, unless the budget runs out first.</p>
+     * @param board The Sudoku board to solve, left untouched if no solution is found
+     * @param budget The node, time and cancellation limits of the search, null for none
+     * @param stats The stats to add the work of this call to, null to not record anything
+     * @param random The source of randomness used to order the search
+     * @return One solution if the board was solved, otherwise zero and whether the budget
+     * stopped the search
+     */
+    SolverResultModel solve(SudokuModel board, SolverBudgetModel budget, SolverStatsModel stats,
+                            SplittableRandom random);
+
+    /**
+     * <p>Creates the digger which checks every removal while a puzzle is generated from the
+     * given board. By default removals are checked by the incremental bitmask solver, which
+     * keeps the puzzle between checks and learns unavoidable sets, so it is much faster than
+     * counting solutions from scratch. Engines override this to check removals themselves.</p>
+     * @param board A fully solved Sudoku board, the board itself is never modified
+     * @return A digger for the puzzle
+     */
+    default PuzzleDiggerModel newDigger(SudokuModel board) {
+        return new PuzzleDiggerModel(board);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.sudokuvocabulary.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class SolverEngineSelectorModel {
+
+    // Selector used by puzzles generated without an explicit engine
+    private static final SolverEngineSelectorModel DEFAULT = newDefault();
+
+    // Engine picked for each grid length, keyed by grid length
+    private final Map<Integer, SolverEngineModel> mEngines = new HashMap<>();
+    // Engine used for grid lengths without an entry in mEngines
+    private SolverEngineModel mFallback;
+
+    /**
+     * <h1>SolverEngineSelectorModel</h1>
+     * <p>Creates a selector which uses the same engine for every board size until
+     * {@link #setEngine(int, SolverEngineModel)} says otherwise.</p>
+     * @param fallback The engine used for sizes without their own engine
+     */
+    public SolverEngineSelectorModel(SolverEngineModel fallback) {
+        mFallback = fallback;
+    }
+
+    /**
+     * @return The selector shared by every puzzle generated without an explicit engine,
+     * changing its engines affects every puzzle generated afterwards
+     */
+    public static SolverEngineSelectorModel getDefault() { return DEFAULT; }
+
+    /**
+     * @param gridLength The side length of the Sudoku grid
+     * @return The engine to use for boards of the given size
+     */
+    public synchronized SolverEngineModel engineFor(int gridLength) {
+        SolverEngineModel engine = mEngines.get(gridLength);
+        return engine != null ? engine : mFallback;
+    }
+
+    /**
+     * <p>Filled grids have a closed-form answer, so generated puzzles start from the shifted
+     * pattern instead of a search, and only the removal checks use the selected engine.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @return The engine to generate boards of the given size with
+     */
+    public SolverEngineModel generationEngineFor(int gridLength) {
+        return new PatternFillEngineModel(engineFor(gridLength));
+    }
+
+    /**
+     * <p>Uses the given engine for every board of the given size.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @param engine The engine to use, null to go back to the fallback engine
+     */
+    public synchronized void setEngine(int gridLength, SolverEngineModel engine) {
+        if (engine == null) {
+            mEngines.remove(gridLength);
+        } else {
+            mEngines.put(gridLength, engine);
+        }
+    }
+
+    /**
+     * <p>Sets the engine used for board sizes without their own engine.</p>
+     * @param fallback The engine to use, must not be null
+     */
+    public synchronized void setFallback(SolverEngineModel fallback) {
+        mFallback = fallback;
+    }
+
+    /**
+     * <p>Small boards are solved fastest by plain backtracking since picking the most
+     * constrained cell costs more than it saves, larger boards use most constrained
+     * backtracking.</p>
+     * @return A selector with the engines that benchmarked fastest for each size
+     */
+    private static SolverEngineSelectorModel newDefault() {
+        SolverEngineSelectorModel selector =
+                new SolverEngineSelectorModel(SudokuSolverModel.Algorithm.MOST_CONSTRAINED);
+        selector.setEngine(4, SudokuSolverModel.Algorithm.BACKTRACKING);
+        selector.setEngine(6, SudokuSolverModel.Algorithm.BACKTRACKING);
+        return selector;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.sudokuvocabulary.models;
+
+public class SolverResultModel {
+
+    /**
+     * Why a solver call returned.
+     */
+    public enum Status {
+        // The search finished or reached its solution limit
+        COMPLETE,
+        // The search expanded more nodes than its budget allowed
+        NODE_LIMIT_REACHED,
+        // The deadline of the budget passed during the search
+        DEADLINE_PASSED,
+        // The cancellation token of the budget was cancelled during the search
+        CANCELLED,
+    }
+
+    // Number of solutions found before the search returned
+    private final int mSolutions;
+    // Why the search returned
+    private final Status mStatus;
+
+    /**
+     * <h1>SolverResultModel</h1>
+     * @param solutions The number of solutions found before the search returned
+     * @param status Why the search returned
+     */
+    public SolverResultModel(int solutions, Status status) {
+        mSolutions = solutions;
+        mStatus = status;
+    }
+
+    /**
+     * @return The number of solutions found. Only a lower bound unless the search is complete
+     */
+    public int getSolutions() { return mSolutions; }
+
+    /**
+     * @return Why the search returned
+     */
+    public Status getStatus() { return mStatus; }
+
+    /**
+     * @return True if the search was not stopped by its budget
+     */
+    public boolean isComplete() { return mStatus == Status.COMPLETE; }
+}
@@ -0,0 +1,112 @@
+package com.example.sudokuvocabulary.models;
+
+import java.util.Locale;
+
+public class SolverStatsModel {
+
+    // Number of search nodes expanded
+    private long mNodes;
+    // Number of times the search ran out of candidates and stepped back
+    private long mBacktracks;
+    // Deepest level of the search tree reached
+    private int mMaxDepth;
+    // Number of values placed in a cell while branching
+    private long mCandidatesTried;
+    // Number of complete solutions reached
+    private long mSolutionsFound;
+    // Wall time spent in the solver
+    private long mElapsedNanos;
+    // Number of solver calls recorded
+    private int mSolverCalls;
+
+    /**
+     * @return The number of search nodes expanded
+     */
+    public long getNodes() { return mNodes; }
+
+    /**
+     * @return The number of times the search ran out of candidates and stepped back
+     */
+    public long getBacktracks() { return mBacktracks; }
+
+    /**
+     * @return The deepest level of the search tree reached by any recorded call
+     */
+    public int getMaxDepth() { return mMaxDepth; }
+
+    /**
+     * @return The number of values placed in a cell while branching
+     */
+    public long getCandidatesTried() { return mCandidatesTried; }
+
+    /**
+     * @return The number of complete solutions reached
+     */
+    public long getSolutionsFound() { return mSolutionsFound; }
+
+    /**
+     * @return The wall time spent in the solver in nanoseconds
+     */
+    public long getElapsedNanos() { return mElapsedNanos; }
+
+    /**
+     * @return The number of solver calls recorded
+     */
+    public int getSolverCalls() { return mSolverCalls; }
+
+    void addNode() { mNodes++; }
+
+    void addBacktrack() { mBacktracks++; }
+
+    void addCandidateTried() { mCandidatesTried++; }
+
+    void addSolutionFound() { mSolutionsFound++; }
+
+    void reachDepth(int depth) {
+        if (depth > mMaxDepth) { mMaxDepth = depth; }
+    }
+
+    /**
+     * <p>Records one complete solver call.</p>
+     * @param elapsedNanos The wall time the call took
+     */
+    void addCall(long elapsedNanos) {
+        mElapsedNanos += elapsedNanos;
+        mSolverCalls++;
+    }
+
+    /**
+     * <p>Adds the counters of another stats object to this one, used to combine the stats of
+     * solvers which ran in parallel. Calls and elapsed time are not added since they are
+     * recorded by whoever waited on the parallel solvers.</p>
+     * @param other The stats to add
+     */
+    public synchronized void merge(SolverStatsModel other) {
+        mNodes += other.mNodes;
+        mBacktracks += other.mBacktracks;
+        mCandidatesTried += other.mCandidatesTried;
+        mSolutionsFound += other.mSolutionsFound;
+        reachDepth(other.mMaxDepth);
+    }
+
+    /**
+     * <p>Sets every counter back to zero.</p>
+     */
+    public void reset() {
+        mNodes = 0;
+        mBacktracks = 0;
+        mMaxDepth = 0;
+        mCandidatesTried = 0;
+        mSolutionsFound = 0;
+        mElapsedNanos = 0;
+        mSolverCalls = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ENGLISH,
+                "calls=%d nodes=%d backtracks=%d maxDepth=%d candidates=%d solutions=%d time=%.3fms",
+                mSolverCalls, mNodes, mBacktracks, mMaxDepth, mCandidatesTried, mSolutionsFound,
+                mElapsedNanos / 1e6);
+    }
+}
@@ -1,12 +1,22 @@
 package com.example.sudokuvocabulary.models;
 
 import java.io.Serializable;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
 
 public class SudokuModel implements Serializable {
 
+    // Number of empty cells asking the generator for a minimal puzzle, one where no clue can
+    // be removed without losing the unique solution
+    public static final int MINIMAL_PUZZLE = Integer.MAX_VALUE;
     // Serialization UID
-    private static final long serialVersionUID = 2;
+    private static final long serialVersionUID = 3;
+    // Maximum number of solver nodes a single uniqueness check may expand while generating
+    private static final long UNIQUENESS_CHECK_NODE_LIMIT = 100_000;
+    // Number of puzzles dug when targeting a difficulty band before settling for the closest
+    private static final int BAND_ATTEMPTS = 8;
+    // Default time the generator may spend searching for more empty cells than one pass finds
+    private static final long DIGGING_TIME_LIMIT_MILLIS = 2000;
 
     // Height of each sub grid
     private final int mSubGridRows;
@@ -16,34 +26,226 @@ public class SudokuModel implements Serializable {
     private final int mGridLength;
     // Number of cells in the Sudoku board
     private final int mGridSize;
-    // Matrix containing the current puzzle
-    private int[][] mSudokuGrid;
-    // Matrix containing the full solution to the puzzle
-    private int[][] mSudokuSolution;
+    // Cells of the current puzzle in row-major order, zero if empty. A byte holds every
+    // number up to 255, read back with & 0xFF
+    private byte[] mSudokuGrid;
+    // Cells of the full solution to the puzzle in row-major order
+    private byte[] mSudokuSolution;
+    // Lookup tables shared by every board of this size, fetched the first time they are needed
+    private transient BoardGeometryModel mGeometry;
     // Array containing the number used to fill each cell
     private final int[] mNumberArray;
-    // Current number of empty cells in the puzzle
+    // Current number of empty cells in the puzzle, kept up to date by every change to a cell
     private int mNumOfEmptyCells;
+    // How many times each number appears in each row, column and sub grid, kept up to date by
+    // every change to a cell once built. See occupancyIndex for the layout
+    private transient byte[] mOccupancy;
+    // Work done by the solver while the puzzle was generated, not saved with the puzzle
+    private transient SolverStatsModel mGenerationStats;
+    // Solver engine which generated the puzzle, not saved with the puzzle
+    private transient SolverEngineModel mGenerationEngine;
+    // Moves made through checkAndFillCellAt, saved with the puzzle, null until the first move
+    private MoveJournalModel mJournal;
+    // Pencil marks of every cell, bit (n-1) is set if the player noted the number n, saved
+    // with the puzzle, null until the first note
+    private int[] mNotes;
 
     /**
      * <h1>SudokuModel</h1>
-     * <p>The main constructor used to initialize Sudoku Boards of various sizes</p>
+     * <p>The main constructor used to initialize Sudoku Boards of various sizes. The grid is
+     * built from the shifted pattern without search, and the removals are checked with the
+     * engine selected for the board size.</p>
      * @param gridLength The side length of the Sudoku grid
      * @param subGridColumns The width of the sub grids
      * @param subGridRows The height of the sub grids
      * @param numOfEmptyCells The number of empty cell the grid should start with
      */
     public SudokuModel(int gridLength, int subGridColumns, int subGridRows, int numOfEmptyCells) {
+        this(gridLength, subGridColumns, subGridRows, numOfEmptyCells,
+                SolverEngineSelectorModel.getDefault().generationEngineFor(gridLength));
+    }
+
+    /**
+     * <h1>SudokuModel</h1>
+     * <p>Constructor used to initialize Sudoku Boards of various sizes with a specific
+     * solver engine filling the grid. Cells are then emptied with a {@link PuzzleDiggerModel}.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param numOfEmptyCells The number of empty cell the grid should start with
+     * @param engine The solver engine used to fill the grid
+     */
+    public SudokuModel(int gridLength, int subGridColumns, int subGridRows, int numOfEmptyCells,
+                       SolverEngineModel engine) {
+        this(gridLength, subGridColumns, subGridRows, numOfEmptyCells, engine, null);
+    }
+
+    /**
+     * <h1>SudokuModel</h1>
+     * <p>Constructor used to generate a puzzle on a background thread which may be cancelled.
+     * Every uniqueness check has a node budget, removals whose check runs out of budget are
+     * abandoned and another cell is tried instead. Once the token is cancelled no more cells
+     * are removed, so the puzzle is still valid but may have fewer empty cells.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param numOfEmptyCells The number of empty cell the grid should start with
+     * @param engine The solver engine used to fill the grid
+     * @param cancellation A token which stops the generation when cancelled, may be null
+     */
+    public SudokuModel(int gridLength, int subGridColumns, int subGridRows, int numOfEmptyCells,
+                       SolverEngineModel engine, CancellationTokenModel cancellation) {
+        this(gridLength, subGridColumns, subGridRows, numOfEmptyCells, engine,
+                new SplittableRandom(), cancellation);
+    }
+
+    /**
+     * <h1>SudokuModel</h1>
+     * <p>Constructor used to generate a reproducible puzzle, the same seed always gives the
+     * same puzzle for a given board size and number of empty cells. The engine is always
+     * MOST_CONSTRAINED rather than the selected one, so changing the per size engines does not
+     * change seeded puzzles.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param numOfEmptyCells The number of empty cell the grid should start with
+     * @param seed The seed of the random number generator used to generate the puzzle
+     */
+    public SudokuModel(int gridLength, int subGridColumns, int subGridRows, int numOfEmptyCells,
+                       long seed) {
+        this(gridLength, subGridColumns, subGridRows, numOfEmptyCells,
+                SudokuSolverModel.Algorithm.MOST_CONSTRAINED, new SplittableRandom(seed), null);
+    }
+
+    /**
+     * <h1>SudokuModel</h1>
+     * <p>The full generating constructor. All randomness used to fill the grid and pick
+     * the cells to empty comes from the given generator, so the puzzle is reproducible
+     * unless the cancellation token is cancelled part way through.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param numOfEmptyCells The number of empty cell the grid should start with
+     * @param engine The solver engine used to fill the grid, a {@link PatternFillEngineModel}
+     *               builds it without search like the constructors without an engine do
+     * @param random The source of randomness used to generate the puzzle
+     * @param cancellation A token which stops the generation when cancelled, may be null
+     */
+    public SudokuModel(int gridLength, int subGridColumns, int subGridRows, int numOfEmptyCells,
+                       SolverEngineModel engine, SplittableRandom random,
+                       CancellationTokenModel cancellation) {
+        this(gridLength, subGridColumns, subGridRows, numOfEmptyCells, engine, random,
+                cancellation, DIGGING_TIME_LIMIT_MILLIS);
+    }
+
+    /**
+     * <h1>SudokuModel</h1>
+     * <p>The full generating constructor with a time limit. One shuffled pass of removals
+     * usually reaches about n*n*2/3 empty cells. If more are requested the puzzle is
+     * improved by swapping clues: an empty cell is filled again and every clue is retried,
+     * which never loses an empty cell and often frees two. This walks through minimal
+     * puzzles until the count is reached, the time limit passes or the token is cancelled.
+     * The puzzle stays reproducible as long as the count is reached within the limit.</p>
+     * <p>With {@link #MINIMAL_PUZZLE} empty cells the first pass tries every cell once and
+     * the puzzle is minimal, since a clue that could not be removed can still not be
+     * removed once more cells are empty. Only clues whose check ran out of budget may be
+     * left over.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param numOfEmptyCells The number of empty cell the grid should start with, or
+     *                        MINIMAL_PUZZLE for as many as possible
+     * @param engine The solver engine used to fill the grid
+     * @param random The source of randomness used to generate the puzzle
+     * @param cancellation A token which stops the generation when cancelled, may be null
+     * @param timeLimitMillis The time allowed for the search beyond the first pass
+     */
+    public SudokuModel(int gridLength, int subGridColumns, int subGridRows, int numOfEmptyCells,
+                       SolverEngineModel engine, SplittableRandom random,
+                       CancellationTokenModel cancellation, long timeLimitMillis) {
+        this(gridLength, subGridColumns, subGridRows, numOfEmptyCells, engine, random,
+                cancellation, timeLimitMillis, null);
+    }
+
+    /**
+     * <h1>SudokuModel</h1>
+     * <p>The full generating constructor with parallel digging. The first pass of removals
+     * checks pool.getParallelism() cells at once with a {@link ParallelPuzzleDiggerModel},
+     * which digs the same puzzle as the sequential pass for the same random generator.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param numOfEmptyCells The number of empty cell the grid should start with
+     * @param engine The solver engine used to fill the grid
+     * @param random The source of randomness used to generate the puzzle
+     * @param cancellation A token which stops the generation when cancelled, may be null
+     * @param timeLimitMillis The time allowed for the search beyond the first pass
+     * @param pool The pool the removal checks run in, null to check them on this thread
+     */
+    public SudokuModel(int gridLength, int subGridColumns, int subGridRows, int numOfEmptyCells,
+                       SolverEngineModel engine, SplittableRandom random,
+                       CancellationTokenModel cancellation, long timeLimitMillis,
+                       ForkJoinPool pool) {
+        long deadline = System.nanoTime() + timeLimitMillis * 1_000_000L;
+        mSubGridRows = subGridRows;
+        mSubGridColumns = subGridColumns;
+        mGridLength = gridLength;
+        mGridSize = gridLength*gridLength;
+        setCells(new byte[mGridSize]);
+        mNumberArray = sequenceArray(gridLength);
+        mGenerationEngine = engine;
+        newFilledGrid(engine, random);
+        mSudokuSolution = mSudokuGrid.clone();
+        PuzzleDiggerModel digger = newPuzzle(numOfEmptyCells, random, cancellation, null, null,
+                pool);
+        if (numOfEmptyCells != MINIMAL_PUZZLE) {
+            swapClues(digger, numOfEmptyCells, random, cancellation, deadline);
+        }
+    }
+
+    /**
+     * <h1>SudokuModel</h1>
+     * <p>Constructor used to generate a puzzle of a given difficulty rather than a given
+     * number of empty cells. Cells are emptied for as long as the puzzle stays unique and
+     * a {@link DifficultyRaterModel} still rates it within the band. If the finished puzzle
+     * is easier than the band, a new grid is dug, up to a few times, and the hardest puzzle
+     * found is kept.</p>
+     * @param gridLength The side length of the Sudoku grid
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param band The difficulty band of the puzzle
+     * @param engine The solver engine used to fill the grid
+     * @param random The source of randomness used to generate the puzzle
+     * @param cancellation A token which stops the generation when cancelled, may be null
+     */
+    public SudokuModel(int gridLength, int subGridColumns, int subGridRows,
+                       DifficultyRatingModel.Band band, SolverEngineModel engine,
+                       SplittableRandom random, CancellationTokenModel cancellation) {
         mSubGridRows = subGridRows;
         mSubGridColumns = subGridColumns;
         mGridLength = gridLength;
         mGridSize = gridLength*gridLength;
-        mNumOfEmptyCells = numOfEmptyCells;
-        mSudokuGrid = new int[gridLength][gridLength];
         mNumberArray = sequenceArray(gridLength);
-        newFilledGrid();
-        mSudokuSolution = copy(getGridAsMatrix());
-        newPuzzle(numOfEmptyCells);
+        mGenerationEngine = engine;
+        DifficultyRaterModel rater = new DifficultyRaterModel(gridLength, subGridColumns,
+                subGridRows);
+        byte[] bestGrid = null, bestSolution = null;
+        DifficultyRatingModel.Band bestBand = null;
+        for (int attempt = 0; attempt < BAND_ATTEMPTS; attempt++) {
+            setCells(new byte[mGridSize]);
+            newFilledGrid(engine, random);
+            mSudokuSolution = mSudokuGrid.clone();
+            newPuzzle(mGridSize, random, cancellation, rater, band, null);
+            DifficultyRatingModel.Band found = rater.rate(this).getBand();
+            if (bestBand == null || found.compareTo(bestBand) > 0) {
+                bestGrid = mSudokuGrid;
+                bestSolution = mSudokuSolution;
+                bestBand = found;
+            }
+            if (found == band || (cancellation != null && cancellation.isCancelled())) { break; }
+        }
+        setCells(bestGrid);
+        mSudokuSolution = bestSolution;
     }
 
     /**
@@ -65,14 +267,7 @@ public class SudokuModel implements Serializable {
      * @param subGridColumns The width of each sub grid
      */
     public SudokuModel(int[][] grid, int subGridRows, int subGridColumns) {
-        mGridLength = grid.length;
-        mGridSize = grid.length*grid.length;
-        mSubGridRows = subGridRows;
-        mSubGridColumns = subGridColumns;
-        mNumberArray = sequenceArray(grid.length);
-        setGrid(grid);
-        mSudokuSolution = copy(getGridAsMatrix());
-        mNumOfEmptyCells = findNumOfEmptyCells();
+        this(flatten(grid), subGridRows, subGridColumns);
     }
 
     /**
@@ -87,16 +282,22 @@ public class SudokuModel implements Serializable {
 
     /**
      * <h1>SudokuModel</h1>
-     * <p>Constructor which initializes a puzzle from an integer array by expanding the array
-     * into a matrix. Mainly used to initialize the model when restoring from an integer array
-     * from a savedInstanceState.</p>
+     * <p>Constructor which initializes a puzzle from an integer array in row-major order.
+     * Mainly used to initialize the model when restoring from an integer array from a
+     * savedInstanceState. The puzzle is also taken as its own solution until one is set.</p>
      * @param grid Integer array containing the numbers of a Sudoku puzzle, grid.length must be the
      *             square of some number greater than zero
      * @param subGridRows The height of a sub grid
      * @param subGridColumns The width of a sub grid
      */
     public SudokuModel(int[] grid, int subGridRows, int subGridColumns) {
-        this(expand(grid), subGridRows, subGridColumns);
+        mGridLength = (int) Math.sqrt(grid.length);
+        mGridSize = grid.length;
+        mSubGridRows = subGridRows;
+        mSubGridColumns = subGridColumns;
+        mNumberArray = sequenceArray(mGridLength);
+        setCells(toCells(grid));
+        mSudokuSolution = mSudokuGrid.clone();
     }
 
     /**
@@ -108,6 +309,25 @@ public class SudokuModel implements Serializable {
         this(grid, 3, 3);
     }
 
+    /**
+     * <h1>SudokuModel</h1>
+     * <p>Constructor which takes ownership of cells already packed one number per byte, used
+     * by other models to build boards without converting to integer arrays.</p>
+     * @param cells The cells of the puzzle in row-major order, not copied
+     * @param solution The cells of the solution in row-major order, not copied
+     * @param subGridRows The height of a sub grid
+     * @param subGridColumns The width of a sub grid
+     */
+    SudokuModel(byte[] cells, byte[] solution, int subGridRows, int subGridColumns) {
+        mGridLength = (int) Math.sqrt(cells.length);
+        mGridSize = cells.length;
+        mSubGridRows = subGridRows;
+        mSubGridColumns = subGridColumns;
+        mNumberArray = sequenceArray(mGridLength);
+        setCells(cells);
+        mSudokuSolution = solution;
+    }
+
     /**
      * @return The length of the Sudoku grid/board.
      * i.e. for a 9x9 Sudoku board, it will return 9
@@ -120,6 +340,29 @@ public class SudokuModel implements Serializable {
      */
     public int getGridSize() { return mGridSize; }
 
+    /**
+     * @return The height of each sub grid.
+     * i.e. for a 6x6 Sudoku board made of 2x3 sub grids, it will return 2
+     */
+    public int getSubGridRows() { return mSubGridRows; }
+
+    /**
+     * @return The width of each sub grid.
+     * i.e. for a 6x6 Sudoku board made of 2x3 sub grids, it will return 3
+     */
+    public int getSubGridColumns() { return mSubGridColumns; }
+
+    /**
+     * @return The row, column, sub grid and peer lookup tables shared by every board of this
+     * size
+     */
+    public BoardGeometryModel getGeometry() {
+        if (mGeometry == null) {
+            mGeometry = BoardGeometryModel.of(mGridLength, mSubGridColumns, mSubGridRows);
+        }
+        return mGeometry;
+    }
+
     /**
      * @return An integer array containing the numbers used to fill the puzzle.
      * i.e. for a typical 9x9 puzzle, it will return some permutation of the array:
@@ -128,51 +371,101 @@ public class SudokuModel implements Serializable {
     public int[] getNumberArray() { return mNumberArray; }
 
     /**
-     * @return The current Sudoku board/grid as an integer matrix
+     * @return A copy of the current Sudoku board/grid as an integer matrix, changing it does
+     * not change the puzzle
+     */
+    public int[][] getGridAsMatrix() {
+        int[][] matrix = new int[mGridLength][mGridLength];
+        for (int index = 0; index < mGridSize; index++) {
+            matrix[index / mGridLength][index % mGridLength] = mSudokuGrid[index] & 0xFF;
+        }
+        return matrix;
+    }
+
+    /**
+     * @return A copy of the current Sudoku board/grid as an integer array in row-major order,
+     * changing it does not change the puzzle. Use {@link #getValueAt(int)} to read single
+     * cells without copying.
+     */
+    public int[] getGridAsArray() { return toArray(mSudokuGrid); }
+
+    /**
+     * @return The cells of the current grid in row-major order, one number per byte read
+     * with {@code & 0xFF}. This is the model's own array and must only be read, writing to
+     * it would leave the empty cell and occupancy counts wrong.
      */
-    public int[][] getGridAsMatrix() { return mSudokuGrid; }
+    byte[] getGridCells() { return mSudokuGrid; }
 
     /**
-     * @return The current Sudoku board/grid as an integer array
+     * @return The cells of the solution in row-major order like {@link #getGridCells()},
+     * the model's own array which must only be read
      */
-    public int[] getGridAsArray() { return flatten(mSudokuGrid); }
+    byte[] getSolutionCells() { return mSudokuSolution; }
 
     /**
-     * @return The fully solved Sudoku puzzle as an array
+     * @return A copy of the fully solved Sudoku puzzle as an array in row-major order
      */
-    public int[] getSolutionAsArray() {return flatten(mSudokuSolution); }
+    public int[] getSolutionAsArray() {return toArray(mSudokuSolution); }
 
     /**
      * @param row The row number of the cell to access, starting from the top at index zero
      * @param column The column number of the cell to access, starting from the left at index zero
      * @return The correct answer for the specified cell
      */
-    public int getSolutionAt(int row, int column) { return mSudokuSolution[row][column]; }
+    public int getSolutionAt(int row, int column) {
+        return getSolutionAt(row*mGridLength + column);
+    }
 
     /**
-     * <p>Sets the current Sudoku puzzle to the given integer matrix.</p>
-     * @param newGrid A Square integer matrix containing a valid Sudoku puzzle
+     * @param index The row-major index of the cell to access, row * gridLength + column
+     * @return The correct answer for the specified cell
+     */
+    public int getSolutionAt(int index) { return mSudokuSolution[index] & 0xFF; }
+
+    /**
+     * <p>Sets the current Sudoku puzzle to the given integer matrix. The matrix is copied.</p>
+     * @param newGrid A Square integer matrix containing a valid Sudoku puzzle, the same size
+     *                as the puzzle
      */
     public void setGrid(int[][] newGrid) {
-        mSudokuGrid = newGrid;
-        mNumOfEmptyCells = findNumOfEmptyCells();
+        setCells(toCells(flatten(newGrid)));
     }
 
     /**
-     * <p>Sets the current Sudoku puzzle to the given integer array.</p>
-     * @param newArray An integer array containing a valid Sudoku puzzle, newArray.length must
-     *                 be the square of some number
+     * <p>Sets the current Sudoku puzzle to the given integer array. The array is copied.</p>
+     * @param newArray An integer array containing a valid Sudoku puzzle, the same size as the
+     *                 puzzle
      */
     public void setGridFromArray(int[] newArray) {
-        mSudokuGrid = expand(newArray);
+        setCells(toCells(newArray));
     }
 
     /**
      * Set the solution to a Sudoku puzzle, only used when restoring after a device rotation
-     * @param solution An integer array containing the solution to a Sudoku puzzle
+     * @param solution An integer array containing the solution to a Sudoku puzzle, the same
+     *                 size as the puzzle
      */
     public void setSolutionFromArray(int[] solution) {
-        mSudokuSolution = expand(solution);
+        mSudokuSolution = toCells(solution);
+    }
+
+    /**
+     * @return A copy of the notes of every cell in row-major order, bit (n-1) of each set if
+     * the number n is noted
+     */
+    public int[] getNotesAsArray() {
+        return mNotes == null ? new int[mGridSize] : mNotes.clone();
+    }
+
+    /**
+     * Set the notes of every cell, only used when restoring after a device rotation
+     * @param notes The notes of every cell as returned by {@link #getNotesAsArray()}
+     */
+    public void setNotesFromArray(int[] notes) {
+        if (notes.length != mGridSize) {
+            throw new IllegalArgumentException("Expected " + mGridSize + " cells, got " + notes.length);
+        }
+        mNotes = notes.clone();
     }
 
     /**
@@ -182,26 +475,41 @@ public class SudokuModel implements Serializable {
      * @return The value at the specified row and column, zero if empty
      */
     public int getValueAt(int row, int column) {
-        return mSudokuGrid[row][column];
+        return getValueAt(row*mGridLength + column);
     }
 
+    /**
+     * @param index The row-major index of the cell to get, row * gridLength + column
+     * @return The value of the cell, zero if empty
+     */
+    public int getValueAt(int index) { return mSudokuGrid[index] & 0xFF; }
+
     /**
      * <p>Sets the cell at the specified row and column to the given value.</p>
      * @param row The row number of the value to get, counting from the top starting at zero
      * @param column The column number of the value to get, counting from the left starting at zero
-     * @param value The number to set the cell to
+     * @param value The number to set the cell to, 0 <= value <= 255
      */
     public void setValueAt(int row, int column, int value) {
-        mSudokuGrid[row][column] = value;
+        setValueAt(row*mGridLength + column, value);
     }
 
     /**
-     * <p>Sets the number of empty cell in the puzzle.</p>
-     * @param numberOfEmptyCells The number of empty cells in the puzzle,
-     *                           0 <= numberOfEmptyCells <= mGridLength
+     * <p>Sets a cell to the given value, updating the number of empty cells and the
+     * occupancy counts in constant time.</p>
+     * @param index The row-major index of the cell to set, row * gridLength + column
+     * @param value The number to set the cell to, 0 <= value <= 255
      */
-    public void setNumberOfEmptyCells(int numberOfEmptyCells) {
-        mNumOfEmptyCells = numberOfEmptyCells;
+    public void setValueAt(int index, int value) {
+        int old = mSudokuGrid[index] & 0xFF;
+        if (old == value) { return; }
+        if (old == 0) { mNumOfEmptyCells--; }
+        if (value == 0) { mNumOfEmptyCells++; }
+        if (mOccupancy != null) {
+            if (old != 0 && old <= mGridLength) { occupy(index, old, -1); }
+            if (value != 0 && value <= mGridLength) { occupy(index, value, 1); }
+        }
+        mSudokuGrid[index] = (byte) value;
     }
 
     /**
@@ -209,6 +517,18 @@ public class SudokuModel implements Serializable {
      */
     public int getNumberOfEmptyCells() { return mNumOfEmptyCells; }
 
+    /**
+     * @return The solver work done by every uniqueness check of the last puzzle generation,
+     * null if the puzzle was not generated by this model or was restored from a save
+     */
+    public SolverStatsModel getGenerationStats() { return mGenerationStats; }
+
+    /**
+     * @return The solver engine which generated the puzzle, null if the puzzle was not
+     * generated by this model or was restored from a save
+     */
+    public SolverEngineModel getGenerationEngine() { return mGenerationEngine; }
+
     /**
      * @param row The row number of the cell to check, index starts at zero counting from the top
      * @param column The column number of the cell to check, index starts at zero counting from
@@ -223,13 +543,15 @@ public class SudokuModel implements Serializable {
     public boolean isGridFilled() { return mNumOfEmptyCells == 0; }
 
     /**
+     * <p>Counts the empty cells by scanning the whole board. {@link #getNumberOfEmptyCells()}
+     * returns the same number without the scan.</p>
      * @return The number of empty cells in the puzzle
      */
     public int findNumOfEmptyCells() {
         int numOfEmptyCells = 0;
-        for (int n: getGridAsArray()) {
-            if (n==0) {
-               numOfEmptyCells++;
+        for (byte cell: mSudokuGrid) {
+            if (cell == 0) {
+                numOfEmptyCells++;
             }
         }
         return numOfEmptyCells;
@@ -237,33 +559,113 @@ public class SudokuModel implements Serializable {
 
     /**
      * <p>Checks whether the given value is the correct answer at the specified cell and
-     * places it in the cell.</p>
+     * places it in the cell. Filling a cell which is already filled changes nothing. Every
+     * placed value is recorded in the move journal so it can be undone, and the notes of
+     * the cell and the value's note in every peer cell are cleared. Undoing the move does
+     * not bring those notes back.</p>
      *
      * @param row    The row number of the cell to check/modify, index starts at zero
      * @param column The column number of the cell to check/modify, index starts at zero
      * @param value  The number to place at the specified cell, 0 <= value <= mGridLength
      */
     public void checkAndFillCellAt(int row, int column, int value) {
-        if (value == getSolutionAt(row, column)) {
-            setValueAt(row, column, value);
-            setNumberOfEmptyCells(mNumOfEmptyCells-1);
+        int index = row*mGridLength + column;
+        if (value == getSolutionAt(index) && value != getValueAt(index)) {
+            if (mJournal == null) { mJournal = new MoveJournalModel(); }
+            mJournal.record(index, getValueAt(index), value, System.currentTimeMillis());
+            setValueAt(index, value);
+            pruneNotes(index, value);
         }
     }
 
+    /**
+     * @param index The row-major index of the cell
+     * @return The pencil marks of the cell, bit (n-1) is set if the number n is noted
+     */
+    public int getNotesAt(int index) { return mNotes == null ? 0 : mNotes[index]; }
+
+    /**
+     * <p>Notes a number in an empty cell, or removes the note if it is already there.
+     * Filled cells have no notes.</p>
+     * @param row The row number of the cell, counting from the top starting at zero
+     * @param column The column number of the cell, counting from the left starting at zero
+     * @param number The number to note, 1 <= number <= mGridLength <= 32
+     * @return True if the number is noted afterwards, false otherwise
+     */
+    public boolean toggleNoteAt(int row, int column, int number) {
+        int index = row*mGridLength + column;
+        if (getValueAt(index) != 0) { return false; }
+        if (mNotes == null) { mNotes = new int[mGridSize]; }
+        mNotes[index] ^= 1 << (number - 1);
+        return (mNotes[index] & 1 << (number - 1)) != 0;
+    }
+
+    /**
+     * <p>Removes every note from a cell.</p>
+     * @param row The row number of the cell, counting from the top starting at zero
+     * @param column The column number of the cell, counting from the left starting at zero
+     */
+    public void clearNotesAt(int row, int column) {
+        if (mNotes != null) { mNotes[row*mGridLength + column] = 0; }
+    }
+
+    /**
+     * <p>Undoes the last move made through checkAndFillCellAt which is still applied. The
+     * empty cell count and the occupancy counts are updated in constant time.</p>
+     * @return The row-major index of the cell changed, -1 if there is nothing to undo
+     */
+    public int undo() {
+        if (mJournal == null || !mJournal.canUndo()) { return -1; }
+        int move = mJournal.stepBack();
+        int index = mJournal.getCellAt(move);
+        setValueAt(index, mJournal.getOldValueAt(move));
+        return index;
+    }
+
+    /**
+     * <p>Makes the last undone move again.</p>
+     * @return The row-major index of the cell changed, -1 if there is nothing to redo
+     */
+    public int redo() {
+        if (mJournal == null || !mJournal.canRedo()) { return -1; }
+        int move = mJournal.stepForward();
+        int index = mJournal.getCellAt(move);
+        setValueAt(index, mJournal.getNewValueAt(move));
+        return index;
+    }
+
+    /**
+     * @return True if there is a move to undo
+     */
+    public boolean canUndo() { return mJournal != null && mJournal.canUndo(); }
+
+    /**
+     * @return True if there is an undone move to redo
+     */
+    public boolean canRedo() { return mJournal != null && mJournal.canRedo(); }
+
+    /**
+     * @return The journal of the moves made, for saving or replaying them without copying
+     * the board, null if no move has been made. It must not be changed by the caller.
+     */
+    public MoveJournalModel getJournal() { return mJournal; }
+
     /**
      * <p>Checks if the given number would be valid at the specified cell by
-     * checking whether it already exists on the same row, column, and sub grid.</p>
+     * checking whether it already exists on the same row, column, and sub grid. The
+     * occupancy counts are built by the first call, after which every call takes constant
+     * time.</p>
      * @param value_row The row number of the cell to check
      * @param value_column The column number of the cell to check
-     * @param number The number to check at the specified cell
+     * @param number The number to check at the specified cell, 1 <= number <= mGridLength
      * @return True if the number is valid, false otherwise
      */
     public boolean gridValid(int value_row, int value_column, int number) {
-        int subGridRowStart = calculateSubGridIndex(value_row, mSubGridRows);
-        int subGridColumnStart = calculateSubGridIndex(value_column, mSubGridColumns);
-
-        boolean valid = rowValid(value_row, number) && columnValid(value_column, number);
-        return valid && subGridValid(subGridRowStart, subGridColumnStart, number);
+        if (mOccupancy == null) { buildOccupancy(); }
+        int subGrid = getGeometry().getSubGridOf(value_row*mGridLength + value_column);
+        return mOccupancy[occupancyIndex(0, value_row, number)] == 0
+                && mOccupancy[occupancyIndex(1, value_column, number)] == 0
+                && mOccupancy[occupancyIndex(2, subGrid, number)] == 0;
     }
 
     /**
@@ -339,61 +741,202 @@ public class SudokuModel implements Serializable {
     }
 
     /**
-     * <p>Generates a new puzzle with the given number of empty cells.
-     * <b>Note:</b> Due to the random nature of the puzzle generating algorithm,
-     * puzzles with more than 55 empty cells are not guaranteed to have the
-     * correct number of empty cells.</p>
-     * @param numOfEmptyCells The number of empty cells in the puzzle.
-     *                        0 <= numOfEmptyCells <= 55
-     */
-    private void newPuzzle(int numOfEmptyCells) {
-        setNumberOfEmptyCells(0);
+     * <p>Generates a new puzzle by trying to empty every cell once in a random order,
+     * stopping at the given number of empty cells.</p>
+     * @param numOfEmptyCells The number of empty cells in the puzzle
+     * @param random The source of randomness used to pick the cells to empty
+     * @param cancellation A token which stops the removal of cells when cancelled, may be null
+     * @param rater The rater checking every removal against the band, null for no band
+     * @param band The hardest band a removal may make the puzzle, null for no band
+     * @param pool The pool to check removals in parallel in, null to check them on this
+     *             thread, ignored when a band is given
+     * @return The digger holding the puzzle, to keep digging with
+     */
+    private PuzzleDiggerModel newPuzzle(int numOfEmptyCells, SplittableRandom random,
+                                        CancellationTokenModel cancellation,
+                                        DifficultyRaterModel rater,
+                                        DifficultyRatingModel.Band band, ForkJoinPool pool) {
+        boolean rated = rater != null && band != DifficultyRatingModel.Band.EXTREME;
+        mGenerationStats = new SolverStatsModel();
         int[][] cells = new int[mGridSize][2];
         for (int index=0; index < mGridSize; index++) {
             cells[index][0] = index / mGridLength;
             cells[index][1] = index % mGridLength;
         }
-        shuffleMatrix(cells);
+        shuffleMatrix(cells, random);
+        if (pool != null && rater == null) {
+            ParallelPuzzleDiggerModel parallelDigger = new ParallelPuzzleDiggerModel(this,
+                    mGenerationEngine, pool, pool.getParallelism());
+            parallelDigger.setStats(mGenerationStats);
+            boolean[] removed = parallelDigger.tryRemoveAll(cells, numOfEmptyCells,
+                    new SolverBudgetModel(UNIQUENESS_CHECK_NODE_LIMIT, Long.MAX_VALUE, cancellation));
+            for (int i = 0; i < cells.length; i++) {
+                if (!removed[i]) { continue; }
+                setValueAt(cells[i][0], cells[i][1], 0);
+            }
+            return parallelDigger.getDigger();
+        }
+        PuzzleDiggerModel digger = mGenerationEngine.newDigger(this);
+        digger.setStats(mGenerationStats);
         for (int[] cell: cells) {
             if (numOfEmptyCells  <= 0) { break; }
-            int row = cell[0], column = cell[1], temp = getValueAt(row, column);
+            if (cancellation != null && cancellation.isCancelled()) { break; }
+            int row = cell[0], column = cell[1];
+            SolverBudgetModel budget = new SolverBudgetModel(
+                    UNIQUENESS_CHECK_NODE_LIMIT, Long.MAX_VALUE, cancellation);
+            if (!digger.tryRemove(row, column, budget)) { continue; }
             setValueAt(row, column, 0);
-            boolean uniqueSol = hasUniqueSolution();
-            if (uniqueSol) {
-                mNumOfEmptyCells++;
-                numOfEmptyCells--;
-            } else {
-                setValueAt(row, column, temp);
+            if (rated && rater.rate(this).getBand().compareTo(band) > 0) {
+                digger.restore(row, column);
+                setValueAt(row, column, getSolutionAt(row, column));
+                continue;
+            }
+            numOfEmptyCells--;
+        }
+        return digger;
+    }
+
+    /**
+     * <p>Raises the number of empty cells of a puzzle the first pass left short. Each step
+     * fills a random empty cell again, retries every clue in a random order and then
+     * retries the filled cell. The puzzle before the step stays reachable, so a step never
+     * loses an empty cell, and steps which free as many cells as they fill still move to a
+     * different puzzle to search from. After mGridSize steps without a gain the search
+     * restarts from a new pass over the solution, and the best puzzle found is kept.</p>
+     * @param digger The digger holding the puzzle
+     * @param numOfEmptyCells The number of empty cells to reach
+     * @param random The source of randomness used to pick the cells
+     * @param cancellation A token which stops the search when cancelled, may be null
+     * @param deadlineNanos The System.nanoTime() value after which no new step is started
+     */
+    private void swapClues(PuzzleDiggerModel digger, int numOfEmptyCells, SplittableRandom random,
+                           CancellationTokenModel cancellation, long deadlineNanos) {
+        int[][] cells = new int[mGridSize][2];
+        for (int index=0; index < mGridSize; index++) {
+            cells[index][0] = index / mGridLength;
+            cells[index][1] = index % mGridLength;
+        }
+        byte[] bestGrid = mSudokuGrid.clone();
+        int bestEmptyCells = mNumOfEmptyCells, stalledSteps = 0;
+        while (keepSwapping(numOfEmptyCells, cancellation, deadlineNanos)) {
+            shuffleMatrix(cells, random);
+            if (stalledSteps++ == mGridSize) {
+                for (int[] cell: cells) {
+                    if (getValueAt(cell[0], cell[1]) != 0) { continue; }
+                    digger.restore(cell[0], cell[1]);
+                    setValueAt(cell[0], cell[1], getSolutionAt(cell[0], cell[1]));
+                }
+                shuffleMatrix(cells, random);
+                for (int[] cell: cells) {
+                    if (mNumOfEmptyCells >= numOfEmptyCells) { break; }
+                    tryRemove(digger, cell[0], cell[1], cancellation);
+                }
+                stalledSteps = 0;
+                if (!keepSwapping(numOfEmptyCells, cancellation, deadlineNanos)) { break; }
+            }
+            int[] filled = null;
+            for (int[] cell: cells) {
+                if (getValueAt(cell[0], cell[1]) == 0) {
+                    filled = cell;
+                    break;
+                }
+            }
+            if (filled == null) { break; }
+            digger.restore(filled[0], filled[1]);
+            setValueAt(filled[0], filled[1], getSolutionAt(filled[0], filled[1]));
+            for (int[] cell: cells) {
+                if (mNumOfEmptyCells >= numOfEmptyCells) { break; }
+                if (cell == filled || getValueAt(cell[0], cell[1]) == 0) { continue; }
+                tryRemove(digger, cell[0], cell[1], cancellation);
+            }
+            if (mNumOfEmptyCells < numOfEmptyCells) {
+                tryRemove(digger, filled[0], filled[1], cancellation);
+            }
+            if (mNumOfEmptyCells > bestEmptyCells) {
+                bestGrid = mSudokuGrid.clone();
+                bestEmptyCells = mNumOfEmptyCells;
+                stalledSteps = 0;
             }
         }
+        if (mNumOfEmptyCells < bestEmptyCells) { setCells(bestGrid); }
     }
 
     /**
-     * @return True if the current puzzle has only one solution, false otherwise
+     * <p>Tells whether {@link #swapClues} should take another step. A restart which was
+     * cancelled or ran out of time can leave the puzzle with fewer empty cells than the
+     * best one, or none at all, so this is checked again after every restart.</p>
+     * @param numOfEmptyCells The number of empty cells to reach
+     * @param cancellation A token which stops the search when cancelled, may be null
+     * @param deadlineNanos The System.nanoTime() value after which no new step is started
+     * @return True if the puzzle has empty cells but not enough, and the search may go on
      */
-    private boolean hasUniqueSolution() {
-        return SudokuSolverModel.solutions(this) == 1;
+    private boolean keepSwapping(int numOfEmptyCells, CancellationTokenModel cancellation,
+                                 long deadlineNanos) {
+        return mNumOfEmptyCells < numOfEmptyCells && mNumOfEmptyCells > 0
+                && System.nanoTime() - deadlineNanos < 0
+                && (cancellation == null || !cancellation.isCancelled());
+    }
+
+    private void tryRemove(PuzzleDiggerModel digger, int row, int column,
+                           CancellationTokenModel cancellation) {
+        SolverBudgetModel budget = new SolverBudgetModel(
+                UNIQUENESS_CHECK_NODE_LIMIT, Long.MAX_VALUE, cancellation);
+        if (digger.tryRemove(row, column, budget)) { setValueAt(row, column, 0); }
     }
 
     /**
      * <p>Generates a new completely solved Sudoku board.</p>
+     * @param engine The solver engine used to fill the board
+     * @param random The source of randomness used to pick the solution
+     * @throws IllegalArgumentException If no engine is given
+     */
+    private void newFilledGrid(SolverEngineModel engine, SplittableRandom random) {
+        if (engine == null) { throw new IllegalArgumentException("No solver engine given"); }
+        engine.solve(this, null, null, random);
+    }
+
+    /**
+     * <p>Replaces every cell of the puzzle, counting the empty cells again. The occupancy
+     * counts are dropped and built again when next needed, and the move journal and the
+     * notes are dropped since they no longer apply.</p>
+     * @param cells The new cells, owned by the model from now on
      */
-    private void newFilledGrid() {
-        SudokuSolverModel.solve(this);
-        mNumOfEmptyCells = 0;
+    private void setCells(byte[] cells) {
+        mSudokuGrid = cells;
+        mOccupancy = null;
+        mJournal = null;
+        mNotes = null;
+        int numOfEmptyCells = 0;
+        for (byte n: cells) {
+            if (n==0) {
+               numOfEmptyCells++;
+            }
+        }
+        mNumOfEmptyCells = numOfEmptyCells;
     }
 
     /**
-     * @param matrix The matrix to copy
-     * @return A deep copy of the given matrix
+     * @param array The cells of a puzzle in row-major order
+     * @return The cells packed one per byte
      */
-    private int[][] copy(int[][] matrix) {
-        int[][] copy = new int[matrix.length][matrix.length];
-        for (int i=0; i<matrix.length* matrix.length; i++) {
-            int row = i/matrix.length, column = i% matrix.length;
-            copy[row][column] = matrix[row][column];
+    private byte[] toCells(int[] array) {
+        if (array.length != mGridSize) {
+            throw new IllegalArgumentException("Expected " + mGridSize + " cells, got "
+                    + array.length);
         }
-        return copy;
+        byte[] cells = new byte[mGridSize];
+        for (int index = 0; index < mGridSize; index++) { cells[index] = (byte) array[index]; }
+        return cells;
+    }
+
+    /**
+     * @param cells The cells of a puzzle packed one per byte
+     * @return The cells as an integer array in row-major order
+     */
+    private static int[] toArray(byte[] cells) {
+        int[] array = new int[cells.length];
+        for (int index = 0; index < cells.length; index++) { array[index] = cells[index] & 0xFF; }
+        return array;
     }
 
     /**
@@ -411,9 +954,9 @@ public class SudokuModel implements Serializable {
     /**
      * <p>Shuffles the rows of the given matrix.</p>
      * @param matrix The matrix to shuffle
+     * @param random The source of randomness used to shuffle
      */
-    private void shuffleMatrix(int[][] matrix) {
-        Random random = new Random();
+    private void shuffleMatrix(int[][] matrix, SplittableRandom random) {
         for (int i = 0; i < matrix.length; i++) {
             int index = random.nextInt(i+1);
             int[] temp = matrix[index];
@@ -423,57 +966,54 @@ public class SudokuModel implements Serializable {
     }
 
     /**
-     * @param index The row/column number to calculate
-     * @param subGridDimension The side length of the sub grid
-     * @return The row/column number of the top-left corner of the sub grid the
-     * given index is in
+     * @param unit 0 for a row, 1 for a column, 2 for a sub grid
+     * @param unitIndex The number of the row, column or sub grid
+     * @param number The number to look up, 1 <= number <= mGridLength
+     * @return The index of the count of the number in the unit in mOccupancy
      */
-    private int calculateSubGridIndex(int index, int subGridDimension) {
-        return index - (index % subGridDimension) ;
+    private int occupancyIndex(int unit, int unitIndex, int number) {
+        return (unit*mGridLength + unitIndex)*mGridLength + number - 1;
     }
 
     /**
-     * @param grid_row The row number to check
-     * @param value The value to check
-     * @return True if the value is not in the current row, false otherwise
+     * <p>Adds to the counts of a number in the row, column and sub grid of a cell.</p>
+     * @param index The row-major index of the cell
+     * @param number The number in the cell, 1 <= number <= mGridLength
+     * @param change 1 if the number was placed, -1 if it was removed
      */
-    private boolean rowValid(int grid_row, int value) {
-        for (int number : mSudokuGrid[grid_row]) {
-            if (number == value) { return false; }
-        }
-        return true;
+    private void occupy(int index, int number, int change) {
+        BoardGeometryModel geometry = getGeometry();
+        mOccupancy[occupancyIndex(0, geometry.getRowOf(index), number)] += change;
+        mOccupancy[occupancyIndex(1, geometry.getColumnOf(index), number)] += change;
+        mOccupancy[occupancyIndex(2, geometry.getSubGridOf(index), number)] += change;
     }
 
     /**
-     * @param grid_column The column number to check
-     * @param value The value to check
-     * @return True if the value is not in the current column, false otherwise
+     * <p>Counts every number of the puzzle in its row, column and sub grid. Counts rather
+     * than bits are kept, so removing one of two equal numbers from a unit, which the solvers
+     * and the player can cause, still leaves the other counted.</p>
      */
-    private boolean columnValid(int grid_column, int value) {
-        for (int row = 0; row < mGridLength; row++) {
-            if (value == getValueAt(row, grid_column)) {
-                return false;
-            }
+    private void buildOccupancy() {
+        mOccupancy = new byte[3*mGridSize];
+        for (int index = 0; index < mGridSize; index++) {
+            int number = getValueAt(index);
+            if (number != 0 && number <= mGridLength) { occupy(index, number, 1); }
         }
-        return true;
     }
 
     /**
-     * @param grid_row_start The row number of the top left cell in the sub grid
-     * @param grid_column_start The column number of the top left cell in the sub grid
-     * @param value the value to check
-     * @return True if the sub grid does not contain the value, false otherwise
+     * <p>Clears the notes of a filled cell and the note of its value in every peer, walking
+     * the peer table of the board geometry.</p>
+     * @param index The row-major index of the filled cell
+     * @param value The value placed in the cell, 1 <= value <= mGridLength
      */
-    private boolean subGridValid(int grid_row_start, int grid_column_start, int value) {
-        int grid_row_end = grid_row_start + mSubGridRows;
-        int grid_column_end = grid_column_start + mSubGridColumns;
-        for (int row = grid_row_start; row < grid_row_end; row++) {
-            for (int column = grid_column_start; column < grid_column_end; column++) {
-                if (getValueAt(row, column) == value) {
-                    return false;
-                }
-            }
+    private void pruneNotes(int index, int value) {
+        if (mNotes == null) { return; }
+        mNotes[index] = 0;
+        int[] peers = getGeometry().peers();
+        int peerCount = getGeometry().getPeerCount(), mask = ~(1 << (value - 1));
+        for (int i = index * peerCount; i < (index + 1) * peerCount; i++) {
+            mNotes[peers[i]] &= mask;
         }
-        return true;
     }
 }
\ No newline at end of file
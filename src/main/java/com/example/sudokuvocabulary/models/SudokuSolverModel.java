@@ -1,54 +1,212 @@
 package com.example.sudokuvocabulary.models;
 
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
 
 public class SudokuSolverModel {
-    private interface RunInSolver {
-        void execute(int solutions, int row, int column);
+
+    // Number of branching cells split into parallel tasks by the PARALLEL algorithm
+    private static final int PARALLEL_SPLIT_DEPTH = 2;
+
+    /**
+     * The search algorithms that can be used to solve a board, each one is also a
+     * {@link SolverEngineModel} running the static methods of this class.
+     */
+    public enum Algorithm implements SolverEngineModel {
+        // Cell by cell backtracking over row, column and sub grid bitmasks
+        BACKTRACKING,
+        // Bitmask backtracking which always branches on the cell with the fewest candidates
+        MOST_CONSTRAINED,
+        // Most constrained backtracking which fills naked and hidden singles before branching
+        CONSTRAINT_PROPAGATION,
+        // Knuth's Algorithm X over an exact cover matrix using dancing links
+        DANCING_LINKS,
+        // Most constrained backtracking with solution counting split across fork/join tasks
+        PARALLEL;
+
+        @Override
+        public SolverResultModel solutions(SudokuModel board, SolverBudgetModel budget,
+                                           SolverStatsModel stats) {
+            return SudokuSolverModel.solutions(board, this, budget, stats);
+        }
+
+        @Override
+        public SolverResultModel solve(SudokuModel board, SolverBudgetModel budget,
+                                       SolverStatsModel stats, SplittableRandom random) {
+            return SudokuSolverModel.solve(board, this, budget, stats, random);
+        }
+
+        /**
+         * <p>BACKTRACKING and MOST_CONSTRAINED search the same way the incremental bitmask
+         * digger does, so they keep it. The other algorithms check removals themselves.</p>
+         */
+        @Override
+        public PuzzleDiggerModel newDigger(SudokuModel board) {
+            if (this == BACKTRACKING || this == MOST_CONSTRAINED) {
+                return new PuzzleDiggerModel(board);
+            }
+            return new PuzzleDiggerModel(board, this);
+        }
     }
+
+    /**
+     * <p>Counts the solutions of the given board, stopping after two since callers only
+     * need to know whether a solution is unique. The board is not modified.</p>
+     * @param board The Sudoku board to check
+     * @return 0 if the board has no solution, 1 if it is unique, 2 if there are several
+     */
     public static int solutions(SudokuModel board) {
-        RunInSolver function = (solutions, row, column) ->
-                board.setValueAt(row, column, 0);
-        return solver(board, 0, 0, function);
+        return solutions(board, Algorithm.MOST_CONSTRAINED);
     }
-    public static boolean solve(SudokuModel board) {
-        RunInSolver function = (solution, row, column) -> {
-            if (solution > 0) {
-                board.setNumberOfEmptyCells(board.getNumberOfEmptyCells()-1);
-            } else {
-                board.setValueAt(row, column, 0);
-            }
-        };
-        return solver(board, 0, 0, function) == 1;
+
+    /**
+     * <p>Counts the solutions of the given board with the given algorithm,
+     * stopping after two.</p>
+     * @param board The Sudoku board to check
+     * @param algorithm The search algorithm to use
+     * @return 0 if the board has no solution, 1 if it is unique, 2 if there are several
+     */
+    public static int solutions(SudokuModel board, Algorithm algorithm) {
+        return solutions(board, algorithm, null).getSolutions();
     }
-    private static int solver(SudokuModel board, int index, int solutions, RunInSolver function) {
-        if (solutions > 1) { return solutions; }
-        if (index >= board.getGridSize()) {
-            return solutions + 1;
-        }
-        int row = (index / board.getGridLength()), column = (index % board.getGridLength());
-        if (board.cellNotEmpty(row, column)) {
-            return solver(board, index+1, solutions, function);
-        }
 
-        for (int number: shuffleArray(board.getNumberArray())) {
-            if (board.gridValid(row, column, number)) {
-                board.setValueAt(row, column, number);
-                solutions = solver(board, index+1, solutions, function);
-                function.execute(solutions, row, column);
-            }
+    /**
+     * <p>Counts the solutions of the given board with the given algorithm, stopping after two
+     * or when the budget runs out.</p>
+     * @param board The Sudoku board to check
+     * @param algorithm The search algorithm to use
+     * @param budget The node, time and cancellation limits of the search, null for none
+     * @return The number of solutions found and whether the budget stopped the search, in
+     * which case the count is only a lower bound
+     */
+    public static SolverResultModel solutions(SudokuModel board, Algorithm algorithm,
+                                              SolverBudgetModel budget) {
+        return solutions(board, algorithm, budget, null);
+    }
+
+    /**
+     * <p>Counts the solutions of the given board with the given algorithm, stopping after two
+     * or when the budget runs out, and records the work done.</p>
+     * @param board The Sudoku board to check
+     * @param algorithm The search algorithm to use
+     * @param budget The node, time and cancellation limits of the search, null for none
+     * @param stats The stats to add the work of this call to, null to not record anything
+     * @return The number of solutions found and whether the budget stopped the search, in
+     * which case the count is only a lower bound
+     */
+    public static SolverResultModel solutions(SudokuModel board, Algorithm algorithm,
+                                              SolverBudgetModel budget, SolverStatsModel stats) {
+        long start = System.nanoTime();
+        SolverResultModel result;
+        if (algorithm == Algorithm.PARALLEL) {
+            result = ParallelSolverModel.solutions(board, PARALLEL_SPLIT_DEPTH,
+                    ForkJoinPool.commonPool(), budget, stats);
+        } else if (algorithm == Algorithm.DANCING_LINKS) {
+            DancingLinksSolverModel solver = new DancingLinksSolverModel(board);
+            solver.setBudget(budget);
+            solver.setStats(stats);
+            int solutions = solver.countSolutions(2);
+            result = new SolverResultModel(solutions, solver.getStatus());
+        } else {
+            BitmaskSolverModel solver = newBitmaskSolver(board, algorithm);
+            solver.setBudget(budget);
+            solver.setStats(stats);
+            int solutions = solver.countSolutions(2);
+            result = new SolverResultModel(solutions, solver.getStatus());
         }
-        return solutions;
+        if (stats != null) { stats.addCall(System.nanoTime() - start); }
+        return result;
+    }
+
+    /**
+     * <p>Fills every empty cell of the given board with a randomly chosen solution.</p>
+     * @param board The Sudoku board to solve
+     * @return True if the board was solved, false if it has no solution
+     */
+    public static boolean solve(SudokuModel board) {
+        return solve(board, Algorithm.MOST_CONSTRAINED);
+    }
+
+    /**
+     * <p>Fills every empty cell of the given board with a randomly chosen solution
+     * found by the given algorithm.</p>
+     * @param board The Sudoku board to solve
+     * @param algorithm The search algorithm to use
+     * @return True if the board was solved, false if it has no solution
+     */
+    public static boolean solve(SudokuModel board, Algorithm algorithm) {
+        return solve(board, algorithm, null).getSolutions() == 1;
+    }
+
+    /**
+     * <p>Fills every empty cell of the given board with a randomly chosen solution found by
+     * the given algorithm, unless the budget runs out first.</p>
+     * @param board The Sudoku board to solve, left untouched if no solution is found
+     * @param algorithm The search algorithm to use
+     * @param budget The node, time and cancellation limits of the search, null for none
+     * @return One solution if the board was solved, otherwise zero and whether the budget
+     * stopped the search
+     */
+    public static SolverResultModel solve(SudokuModel board, Algorithm algorithm,
+                                          SolverBudgetModel budget) {
+        return solve(board, algorithm, budget, null);
     }
 
-    private static int[] shuffleArray(int[] array) {
-        Random random = new Random();
-        for (int i = 0; i < array.length; i++) {
-            int index = random.nextInt(i+1);
-            int temp = array[index];
-            array[index] = array[i];
-            array[i] = temp;
+    /**
+     * <p>Fills every empty cell of the given board with a randomly chosen solution found by
+     * the given algorithm, unless the budget runs out first, and records the work done.</p>
+     * @param board The Sudoku board to solve, left untouched if no solution is found
+     * @param algorithm The search algorithm to use
+     * @param budget The node, time and cancellation limits of the search, null for none
+     * @param stats The stats to add the work of this call to, null to not record anything
+     * @return One solution if the board was solved, otherwise zero and whether the budget
+     * stopped the search
+     */
+    public static SolverResultModel solve(SudokuModel board, Algorithm algorithm,
+                                          SolverBudgetModel budget, SolverStatsModel stats) {
+        return solve(board, algorithm, budget, stats, new SplittableRandom());
+    }
+
+    /**
+     * <p>Fills every empty cell of the given board with a solution chosen by the given source
+     * of randomness, so the same seed and board always give the same solution.</p>
+     * @param board The Sudoku board to solve, left untouched if no solution is found
+     * @param algorithm The search algorithm to use
+     * @param budget The node, time and cancellation limits of the search, null for none
+     * @param stats The stats to add the work of this call to, null to not record anything
+     * @param random The source of randomness used to order the search
+     * @return One solution if the board was solved, otherwise zero and whether the budget
+     * stopped the search
+     */
+    public static SolverResultModel solve(SudokuModel board, Algorithm algorithm,
+                                          SolverBudgetModel budget, SolverStatsModel stats,
+                                          SplittableRandom random) {
+        long start = System.nanoTime();
+        boolean solved;
+        SolverResultModel.Status status;
+        if (algorithm == Algorithm.DANCING_LINKS) {
+            DancingLinksSolverModel solver = new DancingLinksSolverModel(board);
+            solver.setBudget(budget);
+            solver.setStats(stats);
+            solved = solver.solve(random);
+            if (solved) { solver.copyTo(board); }
+            status = solver.getStatus();
+        } else {
+            BitmaskSolverModel solver = newBitmaskSolver(board, algorithm);
+            solver.setBudget(budget);
+            solver.setStats(stats);
+            solved = solver.solve(random);
+            if (solved) { solver.copyTo(board); }
+            status = solver.getStatus();
         }
-        return array;
+        if (stats != null) { stats.addCall(System.nanoTime() - start); }
+        return new SolverResultModel(solved ? 1 : 0, status);
+    }
+
+    private static BitmaskSolverModel newBitmaskSolver(SudokuModel board, Algorithm algorithm) {
+        boolean propagate = algorithm == Algorithm.CONSTRAINT_PROPAGATION;
+        boolean mostConstrained = propagate || algorithm == Algorithm.MOST_CONSTRAINED
+                || algorithm == Algorithm.PARALLEL;
+        return new BitmaskSolverModel(board, mostConstrained, propagate);
     }
 }
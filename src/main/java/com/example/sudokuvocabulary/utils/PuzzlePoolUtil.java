@@ -0,0 +1,236 @@
+package com.example.sudokuvocabulary.utils;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.Resources;
+import android.util.Log;
+
+import com.example.sudokuvocabulary.R;
+import com.example.sudokuvocabulary.models.PuzzleBankModel;
+import com.example.sudokuvocabulary.models.PuzzlePoolModel;
+import com.example.sudokuvocabulary.models.PuzzleSeenSetModel;
+import com.example.sudokuvocabulary.models.PuzzleTransformModel;
+import com.example.sudokuvocabulary.models.SudokuModel;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.SplittableRandom;
+
+public class PuzzlePoolUtil {
+
+    // Number of ready puzzles kept for every board size
+    private static final int POOL_CAPACITY = 2;
+    // Board sizes that can be picked in SetSudokuSizeActivity
+    private static final int[] GRID_LENGTHS = {4, 6, 9, 12};
+    // Number of bank puzzles drawn before accepting one the player may have seen
+    private static final int BANK_ATTEMPTS = 4;
+
+    // Pool shared by every activity of the process, created on first use
+    private static PuzzlePoolModel sPool;
+    // Pre-generated puzzles shipped with the app, null until first used or if unavailable
+    private static PuzzleBankModel sBank;
+    // False until the bank has been mapped or failed to map
+    private static boolean sBankLoaded;
+    // Source of randomness used to pick puzzles from the bank
+    private static final SplittableRandom RANDOM = new SplittableRandom();
+    // Every puzzle generated or handed out since the process started
+    private static final PuzzleSeenSetModel SEEN = new PuzzleSeenSetModel();
+
+    /**
+     * Returns the pool of ready puzzles, restoring the puzzles saved before the process was
+     * last killed and starting the background refill the first time it is called.
+     *
+     * @param context The calling activity's context.
+     * @return The pool shared by the whole app.
+     */
+    public static synchronized PuzzlePoolModel getPool(Context context) {
+        if (sPool != null) { return sPool; }
+
+        Context appContext = context.getApplicationContext();
+        String fileName = appContext.getString(R.string.puzzle_pool_file);
+        sPool = new PuzzlePoolModel(POOL_CAPACITY);
+        sPool.setSeenSet(SEEN);
+        for (int gridLength: GRID_LENGTHS) {
+            sPool.register(gridLength, subGridColumns(gridLength), subGridRows(gridLength),
+                    emptyCells(gridLength));
+        }
+        if (SaveFileUtil.saveExists(appContext, fileName)) {
+            try {
+                FileInputStream fileInputStream = appContext.openFileInput(fileName);
+                ObjectInputStream inputStream = new ObjectInputStream(fileInputStream);
+                sPool.readFrom(inputStream);
+                inputStream.close();
+                fileInputStream.close();
+            } catch (IOException | ClassNotFoundException e) {
+                // A stale or corrupt pool is simply regenerated
+                Log.d(PuzzlePoolUtil.class.getSimpleName(), "Could not restore puzzle pool", e);
+                SaveFileUtil.deleteSave(appContext, fileName);
+            }
+        }
+        PuzzlePoolModel pool = sPool;
+        pool.setOnChanged(() -> writePool(appContext, pool, fileName));
+        pool.setOnGenerationFailed(e -> Log.e(PuzzlePoolUtil.class.getSimpleName(),
+                "Could not generate a pool puzzle", e));
+        pool.start();
+        return pool;
+    }
+
+    /**
+     * Takes a ready puzzle from the pool. If the pool has run dry a randomly transformed
+     * puzzle from the bank shipped in res/raw is used instead, avoiding bank puzzles which
+     * were already handed out, and one is only generated if neither has a puzzle.
+     *
+     * @param context The calling activity's context.
+     * @param gridLength The side length of the Sudoku grid.
+     * @return A new puzzle with half of its cells empty.
+     */
+    public static SudokuModel takePuzzle(Context context, int gridLength) {
+        int subGridColumns = subGridColumns(gridLength), subGridRows = subGridRows(gridLength);
+        int emptyCells = emptyCells(gridLength);
+        PuzzlePoolModel pool = getPool(context);
+        SudokuModel puzzle = pool.poll(gridLength, subGridColumns, subGridRows, emptyCells);
+        if (puzzle != null) { return puzzle; }
+
+        PuzzleBankModel bank = getBank(context);
+        if (bank != null) {
+            for (int attempt = 0; attempt < BANK_ATTEMPTS; attempt++) {
+                synchronized (RANDOM) {
+                    puzzle = bank.random(gridLength, subGridColumns, subGridRows, emptyCells,
+                            RANDOM);
+                    // Shuffle the bank puzzle so players do not recognise repeats
+                    if (puzzle != null) { puzzle = PuzzleTransformModel.transform(puzzle, RANDOM); }
+                }
+                if (puzzle == null || SEEN.add(puzzle)) { break; }
+            }
+            if (puzzle != null) { return puzzle; }
+        }
+        return pool.take(gridLength, subGridColumns, subGridRows, emptyCells);
+    }
+
+    /**
+     * Memory-maps the puzzle bank in res/raw. The resource is mapped in place when the APK
+     * stores it uncompressed, otherwise it is copied to the app's files once per app version
+     * and mapped there, so an update shipping a new bank never maps the old copy.
+     *
+     * @param context The calling activity's context.
+     * @return The bank, or null if it could not be mapped.
+     */
+    public static synchronized PuzzleBankModel getBank(Context context) {
+        if (sBankLoaded) { return sBank; }
+        sBankLoaded = true;
+        Context appContext = context.getApplicationContext();
+        try (AssetFileDescriptor descriptor =
+                     appContext.getResources().openRawResourceFd(R.raw.puzzle_bank);
+             FileInputStream inputStream = descriptor.createInputStream()) {
+            sBank = PuzzleBankModel.map(inputStream.getChannel(),
+                    descriptor.getStartOffset(), descriptor.getLength());
+            return sBank;
+        } catch (Resources.NotFoundException | IOException e) {
+            // The resource is compressed inside the APK and cannot be mapped directly
+            Log.d(PuzzlePoolUtil.class.getSimpleName(), "Copying puzzle bank out of the APK");
+        }
+        String bankFile = appContext.getString(R.string.puzzle_bank_file);
+        File file = new File(appContext.getFilesDir(), bankFile + "." + versionCode(appContext));
+        try {
+            if (!file.exists()) {
+                deleteBanks(appContext.getFilesDir(), bankFile);
+                copyBank(appContext, file);
+            }
+            try (FileChannel channel = new RandomAccessFile(file, "r").getChannel()) {
+                sBank = PuzzleBankModel.map(channel, 0, channel.size());
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            Log.d(PuzzlePoolUtil.class.getSimpleName(), "Could not map puzzle bank", e);
+            file.delete();
+        }
+        return sBank;
+    }
+
+    /**
+     * @param gridLength The side length of the Sudoku grid.
+     * @return The width of the sub grids, i.e. 3 for a 6x6 board.
+     */
+    public static int subGridColumns(int gridLength) {
+        return (int) Math.ceil(Math.sqrt(gridLength));
+    }
+
+    /**
+     * @param gridLength The side length of the Sudoku grid.
+     * @return The height of the sub grids, i.e. 2 for a 6x6 board.
+     */
+    public static int subGridRows(int gridLength) {
+        return (int) Math.floor(Math.sqrt(gridLength));
+    }
+
+    /**
+     * @param gridLength The side length of the Sudoku grid.
+     * @return The number of empty cells a new game starts with.
+     */
+    public static int emptyCells(int gridLength) {
+        return (gridLength*gridLength)/2;
+    }
+
+    /**
+     * @param context The application context.
+     * @return The version code of the installed app, or -1 if it cannot be read.
+     */
+    @SuppressWarnings("deprecation")
+    private static long versionCode(Context context) {
+        try {
+            return context.getPackageManager()
+                    .getPackageInfo(context.getPackageName(), 0).versionCode;
+        } catch (PackageManager.NameNotFoundException e) {
+            Log.d(PuzzlePoolUtil.class.getSimpleName(), "Could not read app version", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Deletes every copy of the bank made by an earlier app version, including partial ones.
+     *
+     * @param directory The directory the copies are made in.
+     * @param bankFile The name of the bank file without its version suffix.
+     */
+    private static void deleteBanks(File directory, String bankFile) {
+        File[] files = directory.listFiles();
+        if (files == null) { return; }
+        for (File file: files) {
+            if (file.getName().startsWith(bankFile)) { file.delete(); }
+        }
+    }
+
+    private static void copyBank(Context context, File file) throws IOException {
+        File partial = new File(file.getPath() + ".tmp");
+        try (InputStream inputStream = context.getResources().openRawResource(R.raw.puzzle_bank);
+             FileOutputStream outputStream = new FileOutputStream(partial)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) > 0) {
+                outputStream.write(buffer, 0, read);
+            }
+        }
+        if (!partial.renameTo(file)) {
+            throw new IOException("Could not move puzzle bank to " + file);
+        }
+    }
+
+    private static void writePool(Context context, PuzzlePoolModel pool, String fileName) {
+        try {
+            FileOutputStream fileOutputStream = context.openFileOutput(fileName, Context.MODE_PRIVATE);
+            ObjectOutputStream outputStream = new ObjectOutputStream(fileOutputStream);
+            pool.writeTo(outputStream);
+            outputStream.close();
+            fileOutputStream.close();
+        } catch (IOException e) {
+            Log.d(PuzzlePoolUtil.class.getSimpleName(), "Could not save puzzle pool", e);
+        }
+    }
+}
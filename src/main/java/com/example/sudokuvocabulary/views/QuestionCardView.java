@@ -22,6 +22,7 @@ public class QuestionCardView extends CardView {
     private final TableLayout mQuestionChoices;
     private Button[] mWordChoiceButtons;
     private int mButtonColumns;
+    private final Random mRandom = new Random();
 
     public QuestionCardView(@NonNull Context context) {
         this(context, null);
@@ -78,10 +79,9 @@ public class QuestionCardView extends CardView {
         String[] shuffledChoices = choices.clone();
         int index;
         String temp;
-        Random random = new Random();
         for (int i = shuffledChoices.length - 1; i > 0; i--)
         {
-            index = random.nextInt(i + 1);
+            index = mRandom.nextInt(i + 1);
             temp = shuffledChoices[index];
             shuffledChoices[index] = shuffledChoices[i];
             shuffledChoices[i] = temp;
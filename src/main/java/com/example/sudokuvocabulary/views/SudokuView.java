@@ -10,18 +10,22 @@ import android.view.View;
 import androidx.annotation.Nullable;
 
 import com.example.sudokuvocabulary.R;
+import com.example.sudokuvocabulary.models.BoardGeometryModel;
+import com.example.sudokuvocabulary.models.SudokuModel;
 
 public class SudokuView extends View {
     private final int mGridColour;
     private final int mCellItemFillColour;
     private final Paint mGridColourPaint = new Paint();
     private final Paint mCellItemFillColourPaint = new Paint();
+    private final Paint mNotePaint = new Paint();
     private int mCellHeight;
     private int mCellWidth;
     private int mGridLength = 9;
-    private int mSubGridWidth = 3;
-    private int mSubGridHeight = 3; // To be used for drawing various sized grids
+    private BoardGeometryModel mGeometry = BoardGeometryModel.of(9, 3, 3); // To be used for drawing various sized grids
     private String[][] mWordsToDraw = null;
+    private SudokuModel mPuzzle = null; // Holds the notes of each empty cell
+    private String[] mNoteLabels = null; // Label drawn for each noted number
 
     public SudokuView(Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
@@ -69,34 +73,54 @@ public class SudokuView extends View {
         mCellItemFillColourPaint.setAntiAlias(true);
         mCellItemFillColourPaint.setTextAlign(Paint.Align.CENTER);
 
+        // Notes are drawn in a small grid inside the cell, one slot per number
+        mNotePaint.setStyle(Paint.Style.FILL);
+        mNotePaint.setTextSize(mCellItemFillColourPaint.getTextSize() / 2);
+        mNotePaint.setColor(mCellItemFillColour);
+        mNotePaint.setAntiAlias(true);
+        mNotePaint.setTextAlign(Paint.Align.CENTER);
+
         // Draw grid border
         canvas.drawRect(0,0, getWidth(), getHeight(), mGridColourPaint);
         // Draw the Sudoku grid and fill each cell with the correct word
         drawGrid(canvas);
         drawCellItems(canvas);
+        drawNotes(canvas);
     }
 
-    public void setView(int[][] grid, String[] words) {
-        mGridLength = grid.length;
-        mSubGridWidth = (int) Math.ceil(Math.sqrt(mGridLength));
-        mSubGridHeight = (int) Math.floor(Math.sqrt(mGridLength));
+    public void setView(SudokuModel puzzle, String[] words) {
+        mGeometry = puzzle.getGeometry();
+        mGridLength = mGeometry.getGridLength();
         mWordsToDraw = new String[mGridLength][mGridLength];
-        for (int i = 0; i < mGridLength* mGridLength; i++) {
-            int row = i / mGridLength, column = i % mGridLength;
-            // Set each cell to the english word specified by grid
-            if (grid[row][column] != 0) {
-                mWordsToDraw[row][column] = words[grid[row][column] - 1];
+        for (int i = 0; i < mGeometry.getGridSize(); i++) {
+            int row = mGeometry.getRowOf(i), column = mGeometry.getColumnOf(i);
+            // Set each cell to the english word specified by the puzzle
+            if (puzzle.getValueAt(i) != 0) {
+                mWordsToDraw[row][column] = words[puzzle.getValueAt(i) - 1];
             }
         }
+        mPuzzle = puzzle;
+        mNoteLabels = words;
         // Call invalidate to redraw the grid
         this.invalidate();
     }
 
-    public void setView(String[][] wordsToDraw) {
-        mGridLength = wordsToDraw.length;
+    public void setView(String[][] wordsToDraw, BoardGeometryModel geometry) {
+        mGeometry = geometry;
+        mGridLength = geometry.getGridLength();
         mWordsToDraw = wordsToDraw;
-        mSubGridWidth = (int) Math.ceil(Math.sqrt(mGridLength));
-        mSubGridHeight = (int) Math.floor(Math.sqrt(mGridLength));
+        this.invalidate();
+    }
+
+    /**
+     * Sets the puzzle whose notes are drawn in its empty cells.
+     *
+     * @param puzzle The puzzle holding the notes, read on every draw.
+     * @param labels The label drawn for each number, labels[n-1] for the number n.
+     */
+    public void setNotes(SudokuModel puzzle, String[] labels) {
+        mPuzzle = puzzle;
+        mNoteLabels = labels;
         this.invalidate();
     }
 
@@ -123,17 +147,42 @@ public class SudokuView extends View {
 
     public void drawCellItems(Canvas canvas) {
         if (mWordsToDraw == null) return;
-        for (int i = 0; i < mGridLength*mGridLength; i++) {
-            int row = i / mGridLength, column = i % mGridLength;
+        for (int i = 0; i < mGeometry.getGridSize(); i++) {
+            int row = mGeometry.getRowOf(i), column = mGeometry.getColumnOf(i);
             String word = mWordsToDraw[row][column];
             if (word != null) {
                 int x_axis = (int) ((column * mCellWidth) + (0.5 * mCellWidth));
                 int y_axis = (int) ((row * mCellHeight) + (0.8 * mCellHeight));
                 int textLength = (int)(mCellWidth / mCellItemFillColourPaint.getTextSize() + 1);
 
-                String wordToDraw = word.length() > textLength ?
-                        word.substring(0, textLength) : word;
-                canvas.drawText(wordToDraw, x_axis, y_axis, mCellItemFillColourPaint);
+                // Draw the start of the word in place rather than allocating a substring
+                canvas.drawText(word, 0, Math.min(word.length(), textLength),
+                        x_axis, y_axis, mCellItemFillColourPaint);
+            }
+        }
+    }
+
+    /**
+     * Draws the notes of every empty cell, the number n in slot n-1 of a grid shaped like
+     * a sub grid. Only the set bits of each cell's notes are visited and nothing is
+     * allocated, so drawing stays cheap on the largest boards.
+     */
+    private void drawNotes(Canvas canvas) {
+        if (mPuzzle == null || mNoteLabels == null || mWordsToDraw == null) return;
+        int slotColumns = mGeometry.getSubGridColumns(), slotRows = mGeometry.getSubGridRows();
+        float slotWidth = (float) mCellWidth / slotColumns;
+        float slotHeight = (float) mCellHeight / slotRows;
+        int textLength = (int)(slotWidth / mNotePaint.getTextSize() + 1);
+        for (int i = 0; i < mGeometry.getGridSize(); i++) {
+            int row = mGeometry.getRowOf(i), column = mGeometry.getColumnOf(i);
+            if (mWordsToDraw[row][column] != null) continue;
+            for (int notes = mPuzzle.getNotesAt(i); notes != 0; notes &= notes - 1) {
+                int slot = Integer.numberOfTrailingZeros(notes);
+                String label = mNoteLabels[slot];
+                float x_axis = column * mCellWidth + (slot % slotColumns + 0.5f) * slotWidth;
+                float y_axis = row * mCellHeight + (slot / slotColumns + 0.8f) * slotHeight;
+                canvas.drawText(label, 0, Math.min(label.length(), textLength),
+                        x_axis, y_axis, mNotePaint);
             }
         }
     }
@@ -154,7 +203,7 @@ public class SudokuView extends View {
         // Draw rows
         for (int line = 0; line < mGridLength +1; line++) {
             // Check if current line is a major line, draw a thicker line if so
-            if (line % mSubGridHeight == 0) {
+            if (line % mGeometry.getSubGridRows() == 0) {
                 drawThickLine();
             } else {
                 drawThinLine();
@@ -166,7 +215,7 @@ public class SudokuView extends View {
         // Draw columns
         for (int line = 0; line < mGridLength +1; line++) {
             // Check if current line is a major line, draw a thicker line if so
-            if (line % mSubGridWidth == 0) {
+            if (line % mGeometry.getSubGridColumns() == 0) {
                 drawThickLine();
             } else {
                 drawThinLine();
@@ -0,0 +1,69 @@
+package com.example.sudokuvocabulary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import com.example.sudokuvocabulary.models.BoardGeometryModel;
+import com.example.sudokuvocabulary.models.SudokuModel;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class BoardGeometryModelTest {
+
+    @Test
+    public void peers() {
+        int[][] geometries = {{4, 2, 2}, {6, 3, 2}, {6, 2, 3}, {9, 3, 3}, {12, 4, 3}};
+        for (int[] geometry: geometries) {
+            int gridLength = geometry[0], subGridColumns = geometry[1], subGridRows = geometry[2];
+            BoardGeometryModel board = BoardGeometryModel.of(gridLength, subGridColumns,
+                    subGridRows);
+            for (int index = 0; index < board.getGridSize(); index++) {
+                Set<Integer> expected = new HashSet<>();
+                for (int other = 0; other < board.getGridSize(); other++) {
+                    boolean sameBox = other / gridLength / subGridRows
+                            == index / gridLength / subGridRows
+                            && other % gridLength / subGridColumns
+                            == index % gridLength / subGridColumns;
+                    if (other != index && (other / gridLength == index / gridLength
+                            || other % gridLength == index % gridLength || sameBox)) {
+                        expected.add(other);
+                    }
+                }
+                Set<Integer> peers = new HashSet<>();
+                for (int i = 0; i < board.getPeerCount(); i++) { peers.add(board.getPeer(index, i)); }
+                assertEquals(expected, peers);
+                assertEquals(board.getPeerCount(), peers.size());
+            }
+        }
+    }
+
+    @Test
+    public void units() {
+        BoardGeometryModel board = BoardGeometryModel.of(6, 3, 2);
+        for (int unit = 0; unit < 18; unit++) {
+            for (int position = 0; position < 6; position++) {
+                int index = board.getUnitCell(unit, position);
+                int member = unit < 6 ? board.getRowOf(index)
+                        : unit < 12 ? 6 + board.getColumnOf(index) : 12 + board.getSubGridOf(index);
+                assertEquals(unit, member);
+            }
+        }
+        // Sub grids are numbered left to right, top to bottom
+        assertEquals(1, board.getSubGridOf(3));
+        assertEquals(2, board.getSubGridOf(12));
+    }
+
+    @Test
+    public void shared() {
+        assertSame(BoardGeometryModel.of(9, 3, 3), BoardGeometryModel.of(9, 3, 3));
+        assertNotSame(BoardGeometryModel.of(6, 3, 2), BoardGeometryModel.of(6, 2, 3));
+        SudokuModel first = new SudokuModel(6, 3, 2, 10, 1L);
+        SudokuModel second = new SudokuModel(6, 3, 2, 10, 2L);
+        assertSame(first.getGeometry(), second.getGeometry());
+        assertEquals(3, first.getGeometry().getSubGridColumns());
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.sudokuvocabulary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sudokuvocabulary.models.DifficultyRaterModel;
+import com.example.sudokuvocabulary.models.DifficultyRatingModel;
+import com.example.sudokuvocabulary.models.DifficultyRatingModel.Band;
+import com.example.sudokuvocabulary.models.DifficultyRatingModel.Technique;
+import com.example.sudokuvocabulary.models.PuzzlePoolModel;
+import com.example.sudokuvocabulary.models.SudokuModel;
+import com.example.sudokuvocabulary.models.SudokuSolverModel;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+public class DifficultyRaterModelTest {
+
+    // Solved with hidden and naked singles alone
+    private final String singlesPuzzle =
+            "003020600900305001001806400008102900700000008006708200002609500800203009005010300";
+    // Needs an X-wing on the number 7 after the singles run out
+    private final String xWingPuzzle =
+            "100000569492056108056109240009640801064010000218035604040500016905061402621000005";
+
+    @Test
+    public void rateSingles() {
+        DifficultyRatingModel rating = new DifficultyRaterModel(9, 3, 3).rate(parse(singlesPuzzle));
+        assertTrue(rating.isSolved());
+        assertEquals(Band.EASY, rating.getBand());
+        assertTrue(rating.getUses(Technique.HIDDEN_SINGLE) > 0);
+        assertEquals(0, rating.getUses(Technique.NAKED_PAIR));
+    }
+
+    @Test
+    public void rateXWing() {
+        DifficultyRatingModel rating = new DifficultyRaterModel(9, 3, 3).rate(parse(xWingPuzzle));
+        assertTrue(rating.isSolved());
+        assertEquals(Technique.X_WING, rating.getHardestTechnique());
+        assertEquals(Band.EXPERT, rating.getBand());
+        assertTrue(rating.getTotalCost() >= Technique.X_WING.getCost());
+    }
+
+    @Test
+    public void rateUnsolvable() {
+        int[] grid = new int[81];
+        grid[0] = 1;
+        DifficultyRatingModel rating = new DifficultyRaterModel(9, 3, 3).rate(new SudokuModel(grid));
+        assertFalse(rating.isSolved());
+        assertNull(rating.getHardestTechnique());
+        assertEquals(Band.EXTREME, rating.getBand());
+    }
+
+    @Test
+    public void generateBand() {
+        SplittableRandom random = new SplittableRandom(3);
+        for (Band band: new Band[] {Band.EASY, Band.MEDIUM, Band.HARD}) {
+            for (int i = 0; i < 5; i++) {
+                SudokuModel puzzle = new SudokuModel(9, 3, 3, band,
+                        SudokuSolverModel.Algorithm.MOST_CONSTRAINED, random, null);
+                assertEquals(1, SudokuSolverModel.solutions(puzzle));
+                Band rated = new DifficultyRaterModel(puzzle).rate(puzzle).getBand();
+                assertTrue(rated.compareTo(band) <= 0);
+                if (band == Band.EASY) { assertEquals(Band.EASY, rated); }
+            }
+        }
+    }
+
+    @Test
+    public void poolBand() {
+        PuzzlePoolModel pool = new PuzzlePoolModel(1);
+        pool.register(6, 3, 2, Band.EASY);
+        SudokuModel puzzle = pool.take(6, 3, 2, Band.EASY);
+        assertEquals(Band.EASY, new DifficultyRaterModel(puzzle).rate(puzzle).getBand());
+        assertEquals(0, pool.available(6, 3, 2, Band.EASY));
+    }
+
+    private SudokuModel parse(String puzzle) {
+        int[] grid = new int[puzzle.length()];
+        for (int i = 0; i < grid.length; i++) { grid[i] = puzzle.charAt(i) - '0'; }
+        return new SudokuModel(grid);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.sudokuvocabulary;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sudokuvocabulary.models.MoveJournalModel;
+import com.example.sudokuvocabulary.models.SudokuModel;
+
+import org.junit.Test;
+
+public class MoveJournalModelTest {
+
+    @Test
+    public void ringBuffer() {
+        MoveJournalModel journal = new MoveJournalModel(40);
+        for (int move = 0; move < 100; move++) { journal.record(move, 0, move % 200 + 1, move); }
+        assertEquals(40, journal.getSize());
+        assertEquals(100, journal.getRecordedCount());
+        // Only the newest moves are kept, oldest first
+        for (int move = 0; move < 40; move++) {
+            assertEquals(60 + move, journal.getCellAt(move));
+            assertEquals(60 + move + 1, journal.getNewValueAt(move));
+            assertEquals(60 + move, journal.getTimeAt(move));
+        }
+        journal.record(7, 255, 254, 0);
+        assertEquals(255, journal.getOldValueAt(39));
+        assertEquals(254, journal.getNewValueAt(39));
+    }
+
+    @Test
+    public void redoDiscarded() {
+        MoveJournalModel journal = new MoveJournalModel();
+        journal.record(1, 0, 5, 0);
+        journal.record(2, 0, 6, 0);
+        assertEquals(1, journal.stepBack());
+        assertTrue(journal.canRedo());
+        journal.record(3, 0, 7, 0);
+        assertFalse(journal.canRedo());
+        assertEquals(2, journal.getSize());
+        assertEquals(3, journal.getCellAt(1));
+    }
+
+    @Test
+    public void undoRedo() {
+        SudokuModel model = new SudokuModel(9, 3, 3, 40, 4L);
+        assertFalse(model.canUndo());
+        assertEquals(-1, model.undo());
+        int[] start = model.getGridAsArray();
+        int filled = 0;
+        for (int index = 0; index < 81 && filled < 10; index++) {
+            if (model.getValueAt(index) != 0) { continue; }
+            model.checkAndFillCellAt(index / 9, index % 9, model.getSolutionAt(index));
+            filled++;
+        }
+        int[] end = model.getGridAsArray();
+        assertEquals(30, model.getNumberOfEmptyCells());
+        for (int move = 0; move < 10; move++) { assertTrue(model.undo() >= 0); }
+        assertEquals(-1, model.undo());
+        assertEquals(40, model.getNumberOfEmptyCells());
+        assertArrayEquals(start, model.getGridAsArray());
+        int cell = model.getJournal().getCellAt(0);
+        assertTrue(model.gridValid(cell / 9, cell % 9, model.getSolutionAt(cell)));
+        for (int move = 0; move < 10; move++) { assertTrue(model.redo() >= 0); }
+        assertFalse(model.canRedo());
+        assertEquals(30, model.getNumberOfEmptyCells());
+        assertArrayEquals(end, model.getGridAsArray());
+        assertFalse(model.gridValid(cell / 9, cell % 9, model.getSolutionAt(cell)));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.sudokuvocabulary;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sudokuvocabulary.models.PuzzleBankModel;
+import com.example.sudokuvocabulary.models.PuzzleBankWriterModel;
+import com.example.sudokuvocabulary.models.SudokuModel;
+import com.example.sudokuvocabulary.models.SudokuSolverModel;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.SplittableRandom;
+
+public class PuzzleBankModelTest {
+
+    @Test
+    public void writeAndRead() throws Exception {
+        PuzzleBankWriterModel writer = new PuzzleBankWriterModel();
+        writer.addSection(6, 3, 2, 18, 5, new SplittableRandom(1));
+        writer.addSection(12, 4, 3, 72, 3, new SplittableRandom(2));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writer.writeTo(bytes);
+
+        PuzzleBankModel bank = new PuzzleBankModel(ByteBuffer.wrap(bytes.toByteArray()));
+        assertEquals(5, bank.count(6, 3, 2, 18));
+        assertEquals(3, bank.count(12, 4, 3, 72));
+        assertEquals(0, bank.count(9, 3, 3, 40));
+        assertNull(bank.random(9, 3, 3, 40, new SplittableRandom()));
+
+        SudokuModel expected = new SudokuModel(12, 4, 3, 72, new SplittableRandom(2).nextLong());
+        SudokuModel puzzle = bank.get(12, 4, 3, 72, 0);
+        assertArrayEquals(expected.getGridAsArray(), puzzle.getGridAsArray());
+        assertArrayEquals(expected.getSolutionAsArray(), puzzle.getSolutionAsArray());
+        assertEquals(72, puzzle.getNumberOfEmptyCells());
+    }
+
+    @Test
+    public void shippedBank() throws Exception {
+        try (FileChannel channel = new RandomAccessFile(
+                "src/main/res/raw/puzzle_bank.bin", "r").getChannel()) {
+            PuzzleBankModel bank = PuzzleBankModel.map(channel, 0, channel.size());
+            int[][] types = {{4, 2, 2, 8}, {6, 3, 2, 18}, {9, 3, 3, 40}, {12, 4, 3, 72}};
+            SplittableRandom random = new SplittableRandom(3);
+            for (int[] type: types) {
+                assertEquals(2000, bank.count(type[0], type[1], type[2], type[3]));
+                SudokuModel puzzle = bank.random(type[0], type[1], type[2], type[3], random);
+                assertEquals(type[3], puzzle.getNumberOfEmptyCells());
+                assertEquals(1, SudokuSolverModel.solutions(puzzle));
+                assertTrue(SudokuSolverModel.solve(puzzle));
+                assertArrayEquals(puzzle.getSolutionAsArray(), puzzle.getGridAsArray());
+            }
+        }
+    }
+}
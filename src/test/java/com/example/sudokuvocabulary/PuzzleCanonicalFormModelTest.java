@@ -0,0 +1,66 @@
+package com.example.sudokuvocabulary;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sudokuvocabulary.models.PuzzleCanonicalFormModel;
+import com.example.sudokuvocabulary.models.PuzzleSeenSetModel;
+import com.example.sudokuvocabulary.models.PuzzleTransformModel;
+import com.example.sudokuvocabulary.models.SudokuModel;
+import com.example.sudokuvocabulary.models.SudokuSolverModel;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+public class PuzzleCanonicalFormModelTest {
+
+    @Test
+    public void canonicalForm() {
+        int[][] geometries = {{4, 2, 2}, {6, 3, 2}, {9, 3, 3}, {12, 4, 3}};
+        SplittableRandom random = new SplittableRandom(8);
+        for (int[] geometry: geometries) {
+            int gridLength = geometry[0], subGridColumns = geometry[1], subGridRows = geometry[2];
+            SudokuModel puzzle = new SudokuModel(gridLength, subGridColumns, subGridRows,
+                    gridLength*gridLength/2, 13L);
+            int[] canonical = PuzzleCanonicalFormModel.canonicalForm(puzzle);
+            assertEquals(puzzle.getGridSize(), canonical.length);
+
+            // The canonical form is itself a transform of the puzzle
+            SudokuModel canonicalPuzzle = new SudokuModel(canonical, subGridRows, subGridColumns);
+            assertEquals(puzzle.getNumberOfEmptyCells(), canonicalPuzzle.getNumberOfEmptyCells());
+            assertEquals(1, SudokuSolverModel.solutions(canonicalPuzzle));
+            assertArrayEquals(canonical, PuzzleCanonicalFormModel.canonicalForm(canonicalPuzzle));
+
+            for (int i = 0; i < 5; i++) {
+                SudokuModel transformed = PuzzleTransformModel.transform(puzzle, random);
+                assertArrayEquals(canonical, PuzzleCanonicalFormModel.canonicalForm(transformed));
+                assertEquals(PuzzleCanonicalFormModel.hash(puzzle),
+                        PuzzleCanonicalFormModel.hash(transformed));
+            }
+        }
+    }
+
+    @Test
+    public void canonicalFormDistinct() {
+        SudokuModel first = new SudokuModel(9, 3, 3, 40, 1L);
+        SudokuModel second = new SudokuModel(9, 3, 3, 40, 2L);
+        assertNotEquals(PuzzleCanonicalFormModel.hash(first), PuzzleCanonicalFormModel.hash(second));
+    }
+
+    @Test
+    public void seenSet() {
+        SplittableRandom random = new SplittableRandom(9);
+        PuzzleSeenSetModel seen = new PuzzleSeenSetModel();
+        SudokuModel puzzle = new SudokuModel(6, 3, 2, 18, 3L);
+        assertFalse(seen.contains(puzzle));
+        assertTrue(seen.add(puzzle));
+        assertFalse(seen.add(PuzzleTransformModel.transform(puzzle, random)));
+        assertTrue(seen.contains(PuzzleTransformModel.transform(puzzle, random)));
+        assertTrue(seen.add(new SudokuModel(6, 3, 2, 18, 4L)));
+        assertEquals(2, seen.size());
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.sudokuvocabulary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import com.example.sudokuvocabulary.models.PuzzleDiggerModel;
+import com.example.sudokuvocabulary.models.PuzzlePoolModel;
+import com.example.sudokuvocabulary.models.SolverBudgetModel;
+import com.example.sudokuvocabulary.models.SolverEngineModel;
+import com.example.sudokuvocabulary.models.SolverEngineSelectorModel;
+import com.example.sudokuvocabulary.models.SolverResultModel;
+import com.example.sudokuvocabulary.models.SolverStatsModel;
+import com.example.sudokuvocabulary.models.SudokuModel;
+import com.example.sudokuvocabulary.models.SudokuSolverModel;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class PuzzlePoolModelTest {
+
+    @Test
+    public void takeFromEmptyPool() {
+        PuzzlePoolModel pool = new PuzzlePoolModel(2);
+        SudokuModel puzzle = pool.take(6, 3, 2, 18);
+        assertEquals(6, puzzle.getGridLength());
+        assertEquals(18, puzzle.findNumOfEmptyCells());
+        assertEquals(0, pool.available(6, 3, 2, 18));
+    }
+
+    @Test
+    public void refill() throws Exception {
+        PuzzlePoolModel pool = new PuzzlePoolModel(2);
+        pool.register(4, 2, 2, 8);
+        pool.register(9, 3, 3, 40);
+        pool.start();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((pool.available(4, 2, 2, 8) < 2 || pool.available(9, 3, 3, 40) < 2)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, pool.available(9, 3, 3, 40));
+        SudokuModel first = pool.take(9, 3, 3, 40);
+        SudokuModel second = pool.take(9, 3, 3, 40);
+        assertNotSame(first, second);
+        assertEquals(40, first.findNumOfEmptyCells());
+        pool.stop();
+    }
+
+    @Test
+    public void persistAfterTake() throws Exception {
+        PuzzlePoolModel pool = new PuzzlePoolModel(1);
+        pool.register(4, 2, 2, 8);
+        List<Integer> saved = Collections.synchronizedList(new ArrayList<>());
+        pool.setOnChanged(() -> saved.add(pool.available(4, 2, 2, 8)));
+        pool.start();
+        while (saved.isEmpty()) { Thread.sleep(10); }
+        pool.take(4, 2, 2, 8);
+        while (saved.size() < 2) { Thread.sleep(10); }
+        pool.stop();
+        // Saved once full, then again without the taken puzzle before it was replaced
+        assertEquals(Integer.valueOf(1), saved.get(0));
+        assertEquals(Integer.valueOf(0), saved.get(1));
+    }
+
+    @Test
+    public void refillAfterFailedGeneration() throws Exception {
+        // The first 6x6 board the default selector digs throws, the next ones are dug
+        SolverEngineModel failOnce = new SolverEngineModel() {
+            private boolean mFailed;
+
+            @Override
+            public SolverResultModel solutions(SudokuModel board, SolverBudgetModel budget,
+                                               SolverStatsModel stats) {
+                return SudokuSolverModel.Algorithm.MOST_CONSTRAINED.solutions(board, budget, stats);
+            }
+
+            @Override
+            public SolverResultModel solve(SudokuModel board, SolverBudgetModel budget,
+                                           SolverStatsModel stats, SplittableRandom random) {
+                return SudokuSolverModel.Algorithm.MOST_CONSTRAINED.solve(board, budget, stats,
+                        random);
+            }
+
+            @Override
+            public PuzzleDiggerModel newDigger(SudokuModel board) {
+                if (!mFailed) {
+                    mFailed = true;
+                    throw new IllegalStateException("Generation failed");
+                }
+                return new PuzzleDiggerModel(board);
+            }
+        };
+        SolverEngineModel previous = SolverEngineSelectorModel.getDefault().engineFor(6);
+        SolverEngineSelectorModel.getDefault().setEngine(6, failOnce);
+        try {
+            PuzzlePoolModel pool = new PuzzlePoolModel(1);
+            pool.register(6, 3, 2, 12);
+            List<RuntimeException> failures = Collections.synchronizedList(new ArrayList<>());
+            pool.setOnGenerationFailed(failures::add);
+            pool.start();
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (pool.available(6, 3, 2, 12) < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            pool.stop();
+            assertEquals(1, failures.size());
+            assertEquals(1, pool.available(6, 3, 2, 12));
+        } finally {
+            SolverEngineSelectorModel.getDefault().setEngine(6, previous);
+        }
+    }
+
+    @Test
+    public void writeAndRead() throws Exception {
+        PuzzlePoolModel pool = new PuzzlePoolModel(1);
+        pool.register(4, 2, 2, 8);
+        pool.start();
+        while (pool.available(4, 2, 2, 8) < 1) { Thread.sleep(10); }
+        pool.stop();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream outputStream = new ObjectOutputStream(bytes);
+        pool.writeTo(outputStream);
+        outputStream.close();
+
+        PuzzlePoolModel restored = new PuzzlePoolModel(1);
+        restored.readFrom(new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(1, restored.available(4, 2, 2, 8));
+        assertEquals(8, restored.take(4, 2, 2, 8).findNumOfEmptyCells());
+    }
+}
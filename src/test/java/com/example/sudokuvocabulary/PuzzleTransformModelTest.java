@@ -0,0 +1,47 @@
+package com.example.sudokuvocabulary;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.example.sudokuvocabulary.models.PuzzleTransformModel;
+import com.example.sudokuvocabulary.models.SudokuModel;
+import com.example.sudokuvocabulary.models.SudokuSolverModel;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+public class PuzzleTransformModelTest {
+
+    @Test
+    public void transform() {
+        int[][] geometries = {{4, 2, 2}, {6, 3, 2}, {9, 3, 3}, {12, 4, 3}};
+        SplittableRandom random = new SplittableRandom(5);
+        for (int[] geometry: geometries) {
+            int gridLength = geometry[0], subGridColumns = geometry[1], subGridRows = geometry[2];
+            SudokuModel base = new SudokuModel(gridLength, subGridColumns, subGridRows,
+                    gridLength*gridLength/2, 11L);
+            boolean changed = false;
+            for (int i = 0; i < 10; i++) {
+                SudokuModel puzzle = PuzzleTransformModel.transform(base, random);
+                assertEquals(subGridRows, puzzle.getSubGridRows());
+                assertEquals(subGridColumns, puzzle.getSubGridColumns());
+                assertEquals(base.getNumberOfEmptyCells(), puzzle.getNumberOfEmptyCells());
+                assertEquals(1, SudokuSolverModel.solutions(puzzle));
+                assertTrue(SudokuSolverModel.solve(puzzle));
+                assertArrayEquals(puzzle.getSolutionAsArray(), puzzle.getGridAsArray());
+                changed |= !Arrays.equals(base.getSolutionAsArray(), puzzle.getSolutionAsArray());
+            }
+            assertTrue(changed);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void transformOtherGeometry() {
+        // 3 rows by 2 columns, the generated puzzle has 2 rows by 3 columns
+        PuzzleTransformModel transform = PuzzleTransformModel.random(3, 2, new SplittableRandom());
+        transform.apply(new SudokuModel(6, 3, 2, 10));
+    }
+}
@@ -3,12 +3,19 @@ package com.example.sudokuvocabulary;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import com.example.sudokuvocabulary.models.CancellationTokenModel;
+import com.example.sudokuvocabulary.models.PatternFillEngineModel;
 import com.example.sudokuvocabulary.models.SudokuModel;
+import com.example.sudokuvocabulary.models.SudokuSolverModel;
 
 import org.junit.Test;
 
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
 public class SudokuModelTest {
 
     private final int[][] testGrid1 = {
@@ -185,4 +192,251 @@ public class SudokuModelTest {
             assertArrayEquals(array, model.getGridAsArray());
         }
     }
+
+    @Test
+    public void gridValidAfterMoves() {
+        SudokuModel model = new SudokuModel(testArray3);
+        SplittableRandom random = new SplittableRandom(5);
+        for (int move = 0; move < 200; move++) {
+            // Includes clearing cells and placing conflicting numbers
+            model.setValueAt(random.nextInt(81), random.nextInt(10));
+            if (move % 20 != 0) { continue; }
+            int[] grid = model.getGridAsArray();
+            int empty = 0;
+            for (int index = 0; index < 81; index++) {
+                if (grid[index] == 0) { empty++; }
+                for (int number = 1; number <= 9; number++) {
+                    assertEquals(scanValid(grid, index / 9, index % 9, number),
+                            model.gridValid(index / 9, index % 9, number));
+                }
+            }
+            assertEquals(empty, model.getNumberOfEmptyCells());
+        }
+    }
+
+    @Test
+    public void checkAndFillCellAt() {
+        SudokuModel model = new SudokuModel(testGrid3);
+        int empty = model.getNumberOfEmptyCells();
+        // Only the answer matters here, not whether it solves the puzzle
+        model.setSolutionFromArray(testArray1);
+        model.checkAndFillCellAt(0, 0, testArray1[0] % 9 + 1);
+        assertEquals(empty, model.getNumberOfEmptyCells());
+        model.checkAndFillCellAt(0, 0, testArray1[0]);
+        model.checkAndFillCellAt(0, 0, testArray1[0]);
+        assertEquals(empty - 1, model.getNumberOfEmptyCells());
+        assertFalse(model.gridValid(0, 8, testArray1[0]));
+    }
+
+    @Test
+    public void notesPrunedByPeers() {
+        SudokuModel model = new SudokuModel(testGrid3);
+        model.setSolutionFromArray(testArray1);
+        int number = testArray1[0], bit = 1 << (number - 1);
+        // Row, column and sub grid peers of the top left cell, then a cell which is not one
+        int[][] cells = {{0, 0}, {0, 2}, {1, 0}, {2, 2}, {3, 1}};
+        for (int[] cell: cells) {
+            assertTrue(model.toggleNoteAt(cell[0], cell[1], number));
+            model.toggleNoteAt(cell[0], cell[1], number % 9 + 1);
+        }
+        assertFalse(model.toggleNoteAt(0, 1, number));
+        assertEquals(0, model.getNotesAt(1));
+
+        model.checkAndFillCellAt(0, 0, number);
+        assertEquals(0, model.getNotesAt(0));
+        for (int i = 1; i < cells.length; i++) {
+            int notes = model.getNotesAt(cells[i][0]*9 + cells[i][1]);
+            assertEquals(i < cells.length - 1 ? 0 : bit, notes & bit);
+            assertTrue(notes != 0);
+        }
+
+        // Notes survive the array round trip and un-noting clears the bit
+        SudokuModel copy = new SudokuModel(model.getGridAsArray(), 3, 3);
+        copy.setNotesFromArray(model.getNotesAsArray());
+        assertFalse(copy.toggleNoteAt(3, 1, number));
+        assertEquals(model.getNotesAt(28) & ~bit, copy.getNotesAt(28));
+    }
+
+    @Test
+    public void getValueAtIndex() {
+        for (int[] array: testArraySuite) {
+            SudokuModel model = new SudokuModel(array);
+            for (int index = 0; index < array.length; index++) {
+                assertEquals(array[index], model.getValueAt(index));
+                assertEquals(array[index], model.getSolutionAt(index));
+            }
+            // The array accessors return copies
+            model.getGridAsArray()[0] = 0;
+            model.getGridAsMatrix()[0][0] = 0;
+            assertEquals(array[0], model.getValueAt(0, 0));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setGridWrongSize() {
+        new SudokuModel(testArray1).setGridFromArray(new int[16]);
+    }
+
+    @Test
+    public void getGenerationStats() {
+        SudokuModel model = new SudokuModel(9, 3, 3, 40);
+        assertTrue(model.getGenerationStats().getSolverCalls() >= 40);
+        assertTrue(model.getGenerationStats().getNodes() > 0);
+        assertNull(new SudokuModel(testGrid1).getGenerationStats());
+    }
+
+    @Test
+    public void newPuzzleFromSeed() {
+        SudokuModel first = new SudokuModel(9, 3, 3, 40, 42L);
+        SudokuModel second = new SudokuModel(9, 3, 3, 40, 42L);
+        assertArrayEquals(first.getGridAsArray(), second.getGridAsArray());
+        assertArrayEquals(first.getSolutionAsArray(), second.getSolutionAsArray());
+
+        SudokuModel rectangular = new SudokuModel(6, 3, 2, 18, 7L);
+        assertArrayEquals(rectangular.getGridAsArray(),
+                new SudokuModel(6, 3, 2, 18, 7L).getGridAsArray());
+    }
+
+    @Test
+    public void newPuzzleFromPattern() {
+        int[][] geometries = {{4, 2, 2}, {6, 3, 2}, {12, 4, 3}, {16, 4, 4}, {20, 5, 4}};
+        for (int[] geometry: geometries) {
+            int gridLength = geometry[0], subGridColumns = geometry[1], subGridRows = geometry[2];
+            SudokuModel model = new SudokuModel(gridLength, subGridColumns, subGridRows,
+                    gridLength*gridLength/4, new PatternFillEngineModel(), new SplittableRandom(3),
+                    null);
+            assertEquals(gridLength*gridLength/4, countEmpty(model.getGridAsArray()));
+            assertEquals(1, SudokuSolverModel.solutions(model));
+
+            SudokuModel solution = new SudokuModel(model.getSolutionAsArray(), subGridRows,
+                    subGridColumns);
+            for (int index = 0; index < solution.getGridSize(); index++) {
+                int row = index/gridLength, column = index%gridLength;
+                int value = solution.getValueAt(row, column);
+                solution.setValueAt(row, column, 0);
+                assertTrue(solution.gridValid(row, column, value));
+                solution.setValueAt(row, column, value);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void newPuzzleWithoutEngine() {
+        new SudokuModel(9, 3, 3, 40, null, new SplittableRandom(3), null);
+    }
+
+    @Test
+    public void newPuzzleHighBlankCount() {
+        // One shuffled pass rarely gets past 58 empty cells on a 9x9 board
+        for (long seed = 1; seed <= 3; seed++) {
+            SudokuModel model = new SudokuModel(9, 3, 3, 60,
+                    SudokuSolverModel.Algorithm.MOST_CONSTRAINED, new SplittableRandom(seed), null,
+                    60_000);
+            assertEquals(60, countEmpty(model.getGridAsArray()));
+            assertEquals(60, model.getNumberOfEmptyCells());
+            assertEquals(1, SudokuSolverModel.solutions(model));
+        }
+    }
+
+    @Test
+    public void newPuzzleCancelledWhileSwapping() {
+        // Without a time limit the first pass runs alone and counts its token checks
+        CountdownTokenModel firstPass = new CountdownTokenModel(0);
+        SudokuModel dug = new SudokuModel(4, 2, 2, 16,
+                SudokuSolverModel.Algorithm.MOST_CONSTRAINED, new SplittableRandom(5), firstPass,
+                0);
+
+        // No 4x4 puzzle has 16 empty cells, so the swaps only stop once the token is
+        // cancelled, which happens at every point of the search for one of the limits
+        int checks = firstPass.getChecks();
+        for (int limit = checks + 1; limit <= checks + 2000; limit++) {
+            SudokuModel model = new SudokuModel(4, 2, 2, 16,
+                    SudokuSolverModel.Algorithm.MOST_CONSTRAINED, new SplittableRandom(5),
+                    new CountdownTokenModel(limit), 60_000);
+            assertTrue(model.getNumberOfEmptyCells() >= dug.getNumberOfEmptyCells());
+            assertEquals(countEmpty(model.getGridAsArray()), model.getNumberOfEmptyCells());
+            assertEquals(1, SudokuSolverModel.solutions(model));
+        }
+    }
+
+    @Test
+    public void newPuzzleParallel() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        int[][] geometries = {{6, 3, 2}, {9, 3, 3}, {12, 4, 3}};
+        for (int[] geometry: geometries) {
+            int gridLength = geometry[0], subGridColumns = geometry[1], subGridRows = geometry[2];
+            int numOfEmptyCells = gridLength*gridLength/2;
+            SudokuModel sequential = new SudokuModel(gridLength, subGridColumns, subGridRows,
+                    numOfEmptyCells, SudokuSolverModel.Algorithm.MOST_CONSTRAINED,
+                    new SplittableRandom(7), null, 0, null);
+            SudokuModel parallel = new SudokuModel(gridLength, subGridColumns, subGridRows,
+                    numOfEmptyCells, SudokuSolverModel.Algorithm.MOST_CONSTRAINED,
+                    new SplittableRandom(7), null, 0, pool);
+            assertArrayEquals(sequential.getGridAsArray(), parallel.getGridAsArray());
+            assertEquals(numOfEmptyCells, countEmpty(parallel.getGridAsArray()));
+            assertEquals(numOfEmptyCells, parallel.getNumberOfEmptyCells());
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void newPuzzleMinimal() {
+        int[][] geometries = {{6, 3, 2}, {9, 3, 3}};
+        for (int[] geometry: geometries) {
+            int gridLength = geometry[0], subGridColumns = geometry[1], subGridRows = geometry[2];
+            SudokuModel model = new SudokuModel(gridLength, subGridColumns, subGridRows,
+                    SudokuModel.MINIMAL_PUZZLE, SudokuSolverModel.Algorithm.MOST_CONSTRAINED,
+                    new SplittableRandom(4), null);
+            assertEquals(countEmpty(model.getGridAsArray()), model.getNumberOfEmptyCells());
+            assertEquals(model.getNumberOfEmptyCells(), model.findNumOfEmptyCells());
+            assertEquals(1, SudokuSolverModel.solutions(model));
+            for (int index = 0; index < model.getGridSize(); index++) {
+                int row = index/gridLength, column = index%gridLength;
+                int value = model.getValueAt(row, column);
+                if (value == 0) { continue; }
+                model.setValueAt(row, column, 0);
+                assertEquals(2, SudokuSolverModel.solutions(model));
+                model.setValueAt(row, column, value);
+            }
+        }
+    }
+
+    /**
+     * <p>A token which cancels itself once it has been checked a given number of times.</p>
+     */
+    private static class CountdownTokenModel extends CancellationTokenModel {
+
+        // Number of checks after which the token cancels itself, 0 to never cancel
+        private final int mLimit;
+        // Number of times the token has been checked
+        private int mChecks;
+
+        CountdownTokenModel(int limit) { mLimit = limit; }
+
+        int getChecks() { return mChecks; }
+
+        @Override
+        public boolean isCancelled() {
+            if (++mChecks == mLimit) { cancel(); }
+            return super.isCancelled();
+        }
+    }
+
+    private int countEmpty(int[] grid) {
+        int empty = 0;
+        for (int value: grid) {
+            if (value == 0) { empty++; }
+        }
+        return empty;
+    }
+
+    private boolean scanValid(int[] grid, int row, int column, int number) {
+        for (int index = 0; index < 81; index++) {
+            int otherRow = index / 9, otherColumn = index % 9;
+            boolean peer = otherRow == row || otherColumn == column
+                    || (otherRow / 3 == row / 3 && otherColumn / 3 == column / 3);
+            if (peer && grid[index] == number) { return false; }
+        }
+        return true;
+    }
 }
\ No newline at end of file
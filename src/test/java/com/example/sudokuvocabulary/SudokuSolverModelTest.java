@@ -2,6 +2,14 @@ package com.example.sudokuvocabulary;
 
 import static org.junit.Assert.*;
 
+import com.example.sudokuvocabulary.models.CancellationTokenModel;
+import com.example.sudokuvocabulary.models.PatternFillEngineModel;
+import com.example.sudokuvocabulary.models.PuzzleDiggerModel;
+import com.example.sudokuvocabulary.models.SolverBudgetModel;
+import com.example.sudokuvocabulary.models.SolverEngineModel;
+import com.example.sudokuvocabulary.models.SolverEngineSelectorModel;
+import com.example.sudokuvocabulary.models.SolverResultModel;
+import com.example.sudokuvocabulary.models.SolverStatsModel;
 import com.example.sudokuvocabulary.models.SudokuModel;
 import com.example.sudokuvocabulary.models.SudokuSolverModel;
 
@@ -9,10 +17,293 @@ import org.junit.Test;
 
 public class SudokuSolverModelTest {
 
+    private final int[][] uniquePuzzle = {
+            {0, 7, 0, 0, 0, 8, 0, 0, 0},
+            {0, 0, 0, 0, 0, 9, 7, 4, 0},
+            {8, 4, 0, 2, 0, 0, 0 ,6, 0},
+            {1, 0, 0, 0, 0, 6, 0, 0, 0},
+            {3, 9, 0, 0, 0, 0, 0, 8, 5},
+            {0, 0, 0, 3, 0, 0, 0, 0, 1},
+            {0, 2, 0, 0, 0, 4, 0, 9, 3},
+            {0, 5, 8, 1, 0, 0, 0, 0, 0},
+            {0, 0, 0, 5, 0, 0, 0, 1, 0},
+    };
+
     @Test
     public void solve() {
         SudokuModel model = new SudokuModel();
         SudokuSolverModel.solve(model);
         assertTrue(model.isGridFilled());
     }
+
+    @Test
+    public void solveRectangularSubGrids() {
+        SudokuModel model = new SudokuModel(new int[12][12], 3, 4);
+        assertTrue(SudokuSolverModel.solve(model));
+        assertTrue(model.isGridFilled());
+        assertEquals(0, model.findNumOfEmptyCells());
+    }
+
+    @Test
+    public void solveLargeGrid() {
+        SudokuModel model = new SudokuModel(new int[16][16], 4, 4);
+        assertTrue(SudokuSolverModel.solve(model));
+        assertTrue(model.isGridFilled());
+        assertEquals(1, SudokuSolverModel.solutions(model));
+    }
+
+    @Test
+    public void solutions() {
+        SudokuModel model = new SudokuModel(uniquePuzzle);
+        assertEquals(1, SudokuSolverModel.solutions(model));
+        assertArrayEquals(SudokuModel.flatten(uniquePuzzle), model.getGridAsArray());
+
+        model.setValueAt(0, 1, 0);
+        model.setValueAt(2, 0, 0);
+        assertEquals(2, SudokuSolverModel.solutions(model));
+
+        model.setValueAt(0, 0, 7);
+        model.setValueAt(0, 1, 7);
+        assertEquals(0, SudokuSolverModel.solutions(model));
+    }
+
+    @Test
+    public void solutionsMostConstrained() {
+        SudokuModel model = new SudokuModel(uniquePuzzle);
+        assertEquals(1, SudokuSolverModel.solutions(model, SudokuSolverModel.Algorithm.MOST_CONSTRAINED));
+        assertArrayEquals(SudokuModel.flatten(uniquePuzzle), model.getGridAsArray());
+
+        model.setValueAt(0, 1, 0);
+        model.setValueAt(2, 0, 0);
+        assertEquals(2, SudokuSolverModel.solutions(model, SudokuSolverModel.Algorithm.MOST_CONSTRAINED));
+    }
+
+    @Test
+    public void solutionsConstraintPropagation() {
+        SudokuModel model = new SudokuModel(uniquePuzzle);
+        assertEquals(1, SudokuSolverModel.solutions(model, SudokuSolverModel.Algorithm.CONSTRAINT_PROPAGATION));
+        assertArrayEquals(SudokuModel.flatten(uniquePuzzle), model.getGridAsArray());
+
+        model.setValueAt(0, 1, 0);
+        model.setValueAt(2, 0, 0);
+        assertEquals(2, SudokuSolverModel.solutions(model, SudokuSolverModel.Algorithm.CONSTRAINT_PROPAGATION));
+
+        model.setValueAt(0, 0, 7);
+        model.setValueAt(0, 1, 7);
+        assertEquals(0, SudokuSolverModel.solutions(model, SudokuSolverModel.Algorithm.CONSTRAINT_PROPAGATION));
+    }
+
+    @Test
+    public void solutionsParallel() {
+        SudokuModel model = new SudokuModel(uniquePuzzle);
+        assertEquals(1, SudokuSolverModel.solutions(model, SudokuSolverModel.Algorithm.PARALLEL));
+        assertArrayEquals(SudokuModel.flatten(uniquePuzzle), model.getGridAsArray());
+
+        model.setValueAt(0, 1, 0);
+        model.setValueAt(2, 0, 0);
+        assertEquals(2, SudokuSolverModel.solutions(model, SudokuSolverModel.Algorithm.PARALLEL));
+
+        model.setValueAt(0, 0, 7);
+        model.setValueAt(0, 1, 7);
+        assertEquals(0, SudokuSolverModel.solutions(model, SudokuSolverModel.Algorithm.PARALLEL));
+    }
+
+    @Test
+    public void solutionsParallelSharedBudget() {
+        int[] hardPuzzle = {
+                8, 0, 0, 0, 0, 0, 0, 0, 0,
+                0, 0, 3, 6, 0, 0, 0, 0, 0,
+                0, 7, 0, 0, 9, 0, 2, 0, 0,
+                0, 5, 0, 0, 0, 7, 0, 0, 0,
+                0, 0, 0, 0, 4, 5, 7, 0, 0,
+                0, 0, 0, 1, 0, 0, 0, 3, 0,
+                0, 0, 1, 0, 0, 0, 0, 6, 8,
+                0, 0, 8, 5, 0, 0, 0, 1, 0,
+                0, 9, 0, 0, 0, 0, 4, 0, 0,
+        };
+        SudokuModel model = new SudokuModel(hardPuzzle);
+        SolverStatsModel stats = new SolverStatsModel();
+        SolverResultModel result = SudokuSolverModel.solutions(model,
+                SudokuSolverModel.Algorithm.PARALLEL, SolverBudgetModel.withNodeLimit(10_000), stats);
+        // Every task needs fewer nodes than the limit but all of them together need more
+        assertEquals(SolverResultModel.Status.NODE_LIMIT_REACHED, result.getStatus());
+        assertTrue(stats.getNodes() <= 10_000);
+    }
+
+    @Test
+    public void solutionsDancingLinks() {
+        SudokuModel model = new SudokuModel(uniquePuzzle);
+        assertEquals(1, SudokuSolverModel.solutions(model, SudokuSolverModel.Algorithm.DANCING_LINKS));
+
+        model.setValueAt(0, 1, 0);
+        model.setValueAt(2, 0, 0);
+        assertEquals(2, SudokuSolverModel.solutions(model, SudokuSolverModel.Algorithm.DANCING_LINKS));
+
+        model.setValueAt(0, 0, 7);
+        model.setValueAt(0, 1, 7);
+        assertEquals(0, SudokuSolverModel.solutions(model, SudokuSolverModel.Algorithm.DANCING_LINKS));
+    }
+
+    @Test
+    public void solveDancingLinks() {
+        int[][] geometries = {{4, 2, 2}, {6, 2, 3}, {9, 3, 3}, {12, 3, 4}};
+        for (int[] geometry: geometries) {
+            SudokuModel model = new SudokuModel(new int[geometry[0]][geometry[0]], geometry[1], geometry[2]);
+            assertTrue(SudokuSolverModel.solve(model, SudokuSolverModel.Algorithm.DANCING_LINKS));
+            assertTrue(model.isGridFilled());
+            assertEquals(1, SudokuSolverModel.solutions(model, SudokuSolverModel.Algorithm.BACKTRACKING));
+        }
+    }
+
+    @Test
+    public void solutionsWithBudget() {
+        SudokuModel model = new SudokuModel(uniquePuzzle);
+        for (SudokuSolverModel.Algorithm algorithm: SudokuSolverModel.Algorithm.values()) {
+            SolverResultModel result = SudokuSolverModel.solutions(model, algorithm,
+                    SolverBudgetModel.withNodeLimit(1_000_000));
+            assertTrue(result.isComplete());
+            assertEquals(1, result.getSolutions());
+
+            result = SudokuSolverModel.solutions(model, algorithm, SolverBudgetModel.withNodeLimit(3));
+            assertEquals(SolverResultModel.Status.NODE_LIMIT_REACHED, result.getStatus());
+            assertArrayEquals(SudokuModel.flatten(uniquePuzzle), model.getGridAsArray());
+
+            CancellationTokenModel cancellation = new CancellationTokenModel();
+            cancellation.cancel();
+            result = SudokuSolverModel.solutions(model, algorithm,
+                    new SolverBudgetModel(Long.MAX_VALUE, Long.MAX_VALUE, cancellation));
+            assertEquals(SolverResultModel.Status.CANCELLED, result.getStatus());
+
+            result = SudokuSolverModel.solutions(model, algorithm,
+                    SolverBudgetModel.withTimeout(Long.MAX_VALUE, -1, null));
+            assertEquals(SolverResultModel.Status.DEADLINE_PASSED, result.getStatus());
+        }
+    }
+
+    @Test
+    public void solveWithBudget() {
+        SudokuModel model = new SudokuModel(new int[9][9]);
+        SolverResultModel result = SudokuSolverModel.solve(model,
+                SudokuSolverModel.Algorithm.MOST_CONSTRAINED, SolverBudgetModel.withNodeLimit(10));
+        assertEquals(SolverResultModel.Status.NODE_LIMIT_REACHED, result.getStatus());
+        assertEquals(81, model.findNumOfEmptyCells());
+    }
+
+    @Test
+    public void solutionsWithStats() {
+        SudokuModel model = new SudokuModel(uniquePuzzle);
+        for (SudokuSolverModel.Algorithm algorithm: SudokuSolverModel.Algorithm.values()) {
+            SolverStatsModel stats = new SolverStatsModel();
+            SudokuSolverModel.solutions(model, algorithm, null, stats);
+            SudokuSolverModel.solutions(model, algorithm, null, stats);
+            assertEquals(2, stats.getSolverCalls());
+            assertEquals(2, stats.getSolutionsFound());
+            assertTrue(stats.getNodes() >= stats.getMaxDepth());
+            assertTrue(stats.getCandidatesTried() > 0);
+            assertTrue(stats.getElapsedNanos() > 0);
+        }
+    }
+
+    @Test
+    public void engineSelector() {
+        SolverEngineSelectorModel selector =
+                new SolverEngineSelectorModel(SudokuSolverModel.Algorithm.MOST_CONSTRAINED);
+        selector.setEngine(4, SudokuSolverModel.Algorithm.BACKTRACKING);
+        assertEquals(SudokuSolverModel.Algorithm.BACKTRACKING, selector.engineFor(4));
+        assertEquals(SudokuSolverModel.Algorithm.MOST_CONSTRAINED, selector.engineFor(12));
+        selector.setEngine(4, null);
+        assertEquals(SudokuSolverModel.Algorithm.MOST_CONSTRAINED, selector.engineFor(4));
+        assertTrue(selector.generationEngineFor(9) instanceof PatternFillEngineModel);
+
+        SolverEngineModel engine = selector.engineFor(9);
+        SudokuModel model = new SudokuModel(uniquePuzzle);
+        assertEquals(1, engine.solutions(model, null, null).getSolutions());
+        SudokuModel generated = new SudokuModel(9, 3, 3, 30,
+                SudokuSolverModel.Algorithm.DANCING_LINKS);
+        assertEquals(SudokuSolverModel.Algorithm.DANCING_LINKS, generated.getGenerationEngine());
+        assertEquals(30, generated.findNumOfEmptyCells());
+
+        // Puzzles without an explicit engine start from the pattern
+        SudokuModel selected = new SudokuModel(9, 3, 3, 30);
+        assertTrue(selected.getGenerationEngine() instanceof PatternFillEngineModel);
+        assertEquals(30, selected.findNumOfEmptyCells());
+        assertEquals(1, SudokuSolverModel.solutions(selected));
+    }
+
+    @Test
+    public void puzzleDigger() {
+        SudokuModel solved = new SudokuModel(uniquePuzzle);
+        assertTrue(SudokuSolverModel.solve(solved));
+        int[] solution = solved.getGridAsArray();
+        SudokuModel puzzle = new SudokuModel(solved.getGridAsMatrix());
+        PuzzleDiggerModel digger = new PuzzleDiggerModel(solved);
+        for (int index = 0; index < 81; index++) {
+            int row = index / 9, column = index % 9;
+            if (uniquePuzzle[row][column] == 0) {
+                assertTrue(digger.tryRemove(row, column, null));
+                puzzle.setValueAt(row, column, 0);
+            }
+        }
+        for (int index = 0; index < 81; index++) {
+            int row = index / 9, column = index % 9, value = puzzle.getValueAt(row, column);
+            if (value == 0) { continue; }
+            puzzle.setValueAt(row, column, 0);
+            boolean unique = SudokuSolverModel.solutions(puzzle) == 1;
+            assertEquals(unique, digger.tryRemove(row, column, null));
+            if (!unique) { puzzle.setValueAt(row, column, value); }
+        }
+
+        // The puzzle is now minimal and every clue was the last clue of an unavoidable set
+        int skipped = digger.getSkippedChecks();
+        for (int index = 0; index < 81; index++) {
+            int row = index / 9, column = index % 9;
+            if (puzzle.getValueAt(row, column) == 0) { continue; }
+            assertTrue(digger.isNecessary(row, column));
+            assertFalse(digger.tryRemove(row, column, null));
+        }
+        assertEquals(81 - puzzle.findNumOfEmptyCells(), digger.getSkippedChecks() - skipped);
+
+        // Filling a cell again can make other clues removable
+        for (int index = 0; index < 81; index++) {
+            int row = index / 9, column = index % 9;
+            if (puzzle.getValueAt(row, column) != 0) { continue; }
+            digger.restore(row, column);
+            puzzle.setValueAt(row, column, solution[index]);
+            for (int other = 0; other < 81; other++) {
+                int otherRow = other / 9, otherColumn = other % 9;
+                if (other == index || puzzle.getValueAt(otherRow, otherColumn) == 0) { continue; }
+                if (!digger.isNecessary(otherRow, otherColumn)) { continue; }
+                puzzle.setValueAt(otherRow, otherColumn, 0);
+                assertEquals(2, SudokuSolverModel.solutions(puzzle));
+                puzzle.setValueAt(otherRow, otherColumn, solution[other]);
+            }
+            assertTrue(digger.tryRemove(row, column, null));
+            puzzle.setValueAt(row, column, 0);
+        }
+    }
+
+    @Test
+    public void puzzleDiggerEngine() {
+        SudokuModel solved = new SudokuModel(uniquePuzzle);
+        assertTrue(SudokuSolverModel.solve(solved));
+        SudokuModel puzzle = new SudokuModel(solved.getGridAsMatrix());
+        PuzzleDiggerModel digger = SudokuSolverModel.Algorithm.DANCING_LINKS.newDigger(solved);
+        SolverStatsModel stats = new SolverStatsModel();
+        digger.setStats(stats);
+        for (int index = 0; index < 81; index++) {
+            int row = index / 9, column = index % 9, value = puzzle.getValueAt(row, column);
+            puzzle.setValueAt(row, column, 0);
+            boolean unique = SudokuSolverModel.solutions(puzzle) == 1;
+            assertEquals(unique, digger.tryRemove(row, column, null));
+            if (!unique) { puzzle.setValueAt(row, column, value); }
+            assertFalse(digger.isNecessary(row, column));
+        }
+        assertEquals(0, digger.getSkippedChecks());
+        assertTrue(stats.getSolverCalls() > 0);
+
+        SudokuModel generated = new SudokuModel(9, 3, 3, 40,
+                SudokuSolverModel.Algorithm.CONSTRAINT_PROPAGATION);
+        assertEquals(40, generated.findNumOfEmptyCells());
+        assertEquals(1, SudokuSolverModel.solutions(generated));
+    }
 }
\ No newline at end of file
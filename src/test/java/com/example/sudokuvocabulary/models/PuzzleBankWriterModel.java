@@ -0,0 +1,134 @@
+package com.example.sudokuvocabulary.models;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+public class PuzzleBankWriterModel {
+
+    // Number of generation attempts allowed per requested puzzle before giving up on duplicates
+    private static final int ATTEMPTS_PER_PUZZLE = 20;
+
+    // Sections added so far, in the order they are written
+    private final List<Section> mSections = new ArrayList<>();
+
+    /**
+     * <p>Build-time tool which writes the puzzle bank shipped in res/raw. It lives in the
+     * test sources so it is not packaged with the app, run it from the test classpath.</p>
+     * <p>Usage: PuzzleBankWriterModel output-file puzzles-per-size [seed]</p>
+     * <p>Generates the given number of puzzles for every board size the app offers, each
+     * with half of its cells empty like a new game.</p>
+     */
+    public static void main(String[] args) throws IOException {
+        int puzzles = Integer.parseInt(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+        SplittableRandom random = new SplittableRandom(seed);
+        PuzzleBankWriterModel writer = new PuzzleBankWriterModel();
+        for (int gridLength: new int[] {4, 6, 9, 12}) {
+            int subGridColumns = (int) Math.ceil(Math.sqrt(gridLength));
+            int subGridRows = (int) Math.floor(Math.sqrt(gridLength));
+            writer.addSection(gridLength, subGridColumns, subGridRows,
+                    (gridLength*gridLength)/2, puzzles, random);
+        }
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(args[0]))) {
+            writer.writeTo(outputStream);
+        }
+    }
+
+    /**
+     * <p>Generates distinct puzzles of the given type to be written to the bank. Generated
+     * puzzles which miss the requested number of empty cells are skipped, and so are
+     * puzzles which are a transform of one already in the bank, since players get bank
+     * puzzles randomly transformed anyway.</p>
+     * @param gridLength The side length of the Sudoku grid, at most 16
+     * @param subGridColumns The width of the sub grids
+     * @param subGridRows The height of the sub grids
+     * @param numOfEmptyCells The number of empty cells of every puzzle
+     * @param puzzles The number of distinct puzzles to generate
+     * @param random The source of randomness used to seed every puzzle
+     * @throws IllegalStateException If not enough distinct puzzles could be generated
+     */
+    public void addSection(int gridLength, int subGridColumns, int subGridRows,
+                           int numOfEmptyCells, int puzzles, SplittableRandom random) {
+        Section section = new Section(gridLength, subGridColumns, subGridRows, numOfEmptyCells);
+        PuzzleSeenSetModel seen = new PuzzleSeenSetModel();
+        for (int attempt = 0; seen.size() < puzzles
+                && attempt < puzzles * ATTEMPTS_PER_PUZZLE; attempt++) {
+            SudokuModel puzzle = new SudokuModel(gridLength, subGridColumns, subGridRows,
+                    numOfEmptyCells, random.nextLong());
+            if (puzzle.getNumberOfEmptyCells() != numOfEmptyCells) { continue; }
+            if (seen.add(puzzle)) { section.mRecords.add(encode(puzzle)); }
+        }
+        if (seen.size() < puzzles) {
+            throw new IllegalStateException("Only " + seen.size() + " distinct " + gridLength
+                    + "x" + gridLength + " puzzles could be generated");
+        }
+        mSections.add(section);
+    }
+
+    /**
+     * <p>Writes the header, the section index and every puzzle record to the stream.</p>
+     * @param outputStream The stream to write the bank to
+     * @throws IOException If writing to the stream fails
+     */
+    public void writeTo(OutputStream outputStream) throws IOException {
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(PuzzleBankModel.MAGIC);
+        output.writeShort(PuzzleBankModel.VERSION);
+        output.writeShort(mSections.size());
+
+        int offset = PuzzleBankModel.HEADER_SIZE + mSections.size() * PuzzleBankModel.SECTION_SIZE;
+        for (Section section: mSections) {
+            output.writeByte(section.mGridLength);
+            output.writeByte(section.mSubGridColumns);
+            output.writeByte(section.mSubGridRows);
+            output.writeByte(0);
+            output.writeShort(section.mNumOfEmptyCells);
+            output.writeShort(0);
+            output.writeInt(section.mRecords.size());
+            output.writeInt(offset);
+            offset += section.mRecords.size() * PuzzleBankModel.recordSize(section.mGridLength);
+        }
+        for (Section section: mSections) {
+            for (byte[] record: section.mRecords) { output.write(record); }
+        }
+        output.flush();
+    }
+
+    /**
+     * @param puzzle The puzzle to encode
+     * @return The givens bitmask of the puzzle followed by its solution packed two cells
+     * per byte, high nibble first, each cell holding its number minus one
+     */
+    private static byte[] encode(SudokuModel puzzle) {
+        int gridSize = puzzle.getGridSize();
+        int givensSize = PuzzleBankModel.givensSize(gridSize);
+        byte[] record = new byte[PuzzleBankModel.recordSize(puzzle.getGridLength())];
+        for (int index = 0; index < gridSize; index++) {
+            if (puzzle.getValueAt(index) != 0) { record[index / 8] |= 1 << (index % 8); }
+            int nibble = puzzle.getSolutionAt(index) - 1;
+            record[givensSize + index / 2] |= index % 2 == 0 ? nibble << 4 : nibble;
+        }
+        return record;
+    }
+
+    /**
+     * The puzzles of one board geometry and number of empty cells.
+     */
+    private static class Section {
+        private final int mGridLength, mSubGridColumns, mSubGridRows, mNumOfEmptyCells;
+        private final List<byte[]> mRecords = new ArrayList<>();
+
+        Section(int gridLength, int subGridColumns, int subGridRows, int numOfEmptyCells) {
+            mGridLength = gridLength;
+            mSubGridColumns = subGridColumns;
+            mSubGridRows = subGridRows;
+            mNumOfEmptyCells = numOfEmptyCells;
+        }
+    }
+}